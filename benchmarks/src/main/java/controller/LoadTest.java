@@ -0,0 +1,271 @@
+package controller;
+
+import model.Config;
+import model.ConnectionPool;
+import model.Error;
+import model.Fixtures;
+import model.GradingEngine;
+import model.SandboxPool;
+import model.WorkingData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless load generator that simulates a lab full of students against the configured MariaDB. Each simulated
+ * student logs in, starts a submission, answers every question with a think time between answers and submits, using
+ * the same controller.Student calls as the JavaFX client. Students are added to the students table until there is one
+ * per simulated student. Answers are a mix of the correct SQL, SQL that runs but gives the wrong result, and SQL that
+ * fails. At the end it prints the p50/p95/p99 latency of each phase, the throughput, and the peak connection, sandbox
+ * and grading queue counts.
+ * <p>
+ * Settings: sqlmark.load.students (default 200), sqlmark.load.think in milliseconds, randomised by half either way
+ * (default 2000), sqlmark.load.ramp in milliseconds over which the students start (default 10000),
+ * sqlmark.load.correct and sqlmark.load.failing percentages of answers (default 60 and 10, the rest are wrong),
+ * sqlmark.load.seed (default 42) and sqlmark.bench.load to load the sample files first (default true).
+ * <p>
+ * Run from the repository root: java -cp benchmarks/target/benchmarks.jar controller.LoadTest
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class LoadTest {
+    private static final String WRONG_SQL = "SELECT * FROM uniData WHERE Credits > 1000;";
+    private static final String FAILING_SQL = "SELECT * FROM no_such_table;";
+
+    private final int students;
+    private final long thinkMillis;
+    private final long rampMillis;
+    private final int correctPercent;
+    private final int failingPercent;
+    private final long seed;
+    private final Map<String, String> answers;
+    private final Map<String, Phase> phases = new HashMap<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger answered = new AtomicInteger();
+    private int peakActiveConnections;
+    private int minAvailableSandboxes = Integer.MAX_VALUE;
+    private int peakGradingQueue;
+
+    /**
+     * The latencies recorded for one phase
+     */
+    private static class Phase {
+        private final String name;
+        private final List<Long> nanos = new ArrayList<>();
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        private synchronized void record(long elapsed) {
+            nanos.add(elapsed);
+        }
+
+        /**
+         * Gets a percentile by the nearest rank method
+         *
+         * @param sorted     latencies
+         * @param percentile to get, from 0 to 100
+         * @return the latency in milliseconds
+         */
+        private static double percentile(List<Long> sorted, double percentile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+            return sorted.get(Math.max(0, rank - 1)) / 1e6;
+        }
+
+        @Override
+        public synchronized String toString() {
+            List<Long> sorted = new ArrayList<>(nanos);
+            Collections.sort(sorted);
+            return String.format("%-10s %7d %10.1f %10.1f %10.1f %10.1f", name, sorted.size(),
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                    percentile(sorted, 100));
+        }
+    }
+
+    /**
+     * Something a simulated student does that is timed
+     */
+    private interface Step {
+        void run() throws Error;
+    }
+
+    /**
+     * Creates a load test from the settings
+     *
+     * @param answers correct SQL for each question, by question text
+     */
+    public LoadTest(Map<String, String> answers) {
+        this.students = Config.getInt("sqlmark.load.students", 200);
+        this.thinkMillis = Config.getLong("sqlmark.load.think", 2000);
+        this.rampMillis = Config.getLong("sqlmark.load.ramp", 10000);
+        this.correctPercent = Config.getInt("sqlmark.load.correct", 60);
+        this.failingPercent = Config.getInt("sqlmark.load.failing", 10);
+        this.seed = Config.getLong("sqlmark.load.seed", 42);
+        this.answers = answers;
+        for (String phase : new String[]{"login", "start", "answer", "submit"}) {
+            phases.put(phase, new Phase(phase));
+        }
+    }
+
+    /**
+     * Runs every simulated student and prints the report
+     *
+     * @throws Error if the students cannot be read or added
+     * @throws InterruptedException if interrupted while waiting for the students
+     */
+    public void run() throws Error, InterruptedException {
+        // Each simulated student logs in as a different student, so no two share their submissions or data pack
+        List<String> studentNums = Fixtures.addStudents(WorkingData.getStudentNumbers(), students);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+        CountDownLatch done = new CountDownLatch(students);
+        long start = System.nanoTime();
+        for (int i = 0; i < students; i++) {
+            String studentNum = studentNums.get(i);
+            Random random = new Random(seed + i);
+            long delay = students == 1 ? 0 : rampMillis * i / (students - 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    Thread.sleep(delay);
+                    simulate(studentNum, random);
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    System.err.println(studentNum + " failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }, "student-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        sampler.shutdownNow();
+        sample();
+        report(seconds);
+    }
+
+    /**
+     * Simulates one student doing the whole assignment
+     *
+     * @param studentNum to log in as
+     * @param random     for the think times and answer mix
+     * @throws Error if a step fails
+     * @throws InterruptedException if interrupted while thinking
+     */
+    private void simulate(String studentNum, Random random) throws Error, InterruptedException {
+        Student[] student = new Student[1];
+        time("login", () -> student[0] = new Student(studentNum));
+        time("start", student[0]::createSubmission);
+        String question;
+        while ((question = student[0].getNextQuestion()) != null) {
+            Thread.sleep(thinkMillis / 2 + (long) (random.nextDouble() * thinkMillis));
+            String sql = chooseAnswer(question, random);
+            time("answer", () -> {
+                student[0].answerQuestion(sql);
+                student[0].whenGraded().join();
+            });
+            answered.incrementAndGet();
+        }
+        time("submit", student[0]::submitAssignment);
+    }
+
+    /**
+     * Picks a correct, wrong or failing answer
+     *
+     * @param question text being answered
+     * @param random   for the choice
+     * @return the SQL to answer with
+     */
+    private String chooseAnswer(String question, Random random) {
+        int roll = random.nextInt(100);
+        if (roll < correctPercent && answers.containsKey(question)) {
+            return answers.get(question);
+        } else if (roll < correctPercent + failingPercent) {
+            return FAILING_SQL;
+        }
+        return WRONG_SQL;
+    }
+
+    /**
+     * Runs a step and records how long it took
+     *
+     * @param phase the step belongs to
+     * @param step  to run
+     * @throws Error if the step fails
+     */
+    private void time(String phase, Step step) throws Error {
+        long start = System.nanoTime();
+        step.run();
+        phases.get(phase).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records the peak pool usage
+     */
+    private synchronized void sample() {
+        peakActiveConnections = Math.max(peakActiveConnections, ConnectionPool.getInstance().getActive());
+        minAvailableSandboxes = Math.min(minAvailableSandboxes, SandboxPool.getInstance().getAvailable());
+        peakGradingQueue = Math.max(peakGradingQueue, GradingEngine.getInstance().getQueued());
+    }
+
+    /**
+     * Prints the results
+     *
+     * @param seconds the whole run took
+     */
+    private synchronized void report(double seconds) {
+        System.out.println();
+        System.out.printf("%d students, think time %dms, %d%% correct, %d%% failing%n", students, thinkMillis,
+                correctPercent, failingPercent);
+        System.out.printf("%-10s %7s %10s %10s %10s %10s%n", "phase", "count", "p50 ms", "p95 ms", "p99 ms",
+                "max ms");
+        for (String phase : new String[]{"login", "start", "answer", "submit"}) {
+            System.out.println(phases.get(phase));
+        }
+        System.out.printf("Answers graded: %d in %.1fs (%.1f answers/s), students failed: %d%n", answered.get(),
+                seconds, answered.get() / seconds, failures.get());
+        ConnectionPool pool = ConnectionPool.getInstance();
+        System.out.printf("Connections: peak active %d of %d, average wait %.1fms, max wait %.1fms, leaks %d%n",
+                peakActiveConnections, pool.getMaxSize(), pool.getAverageWaitMillis(), pool.getMaxWaitMillis(),
+                pool.getLeakCount());
+        System.out.printf("Sandboxes: fewest available %d of %d%n", minAvailableSandboxes,
+                SandboxPool.getInstance().getSize());
+        System.out.printf("Grading queue: peak %d waiting%n", peakGradingQueue);
+    }
+
+    /**
+     * Loads the sample files and runs the load test
+     *
+     * @param args none, settings are read from sqlmark.properties and -D system properties
+     */
+    public static void main(String[] args) {
+        try {
+            Fixtures.loadDatabase();
+            Map<String, String> answers = new HashMap<>();
+            List<List<String>> lines = Fixtures.readCsv(Fixtures.QUESTIONS, '|');
+            for (List<String> line : lines.subList(2, lines.size())) {
+                answers.put(line.get(1), line.get(2));
+            }
+            new LoadTest(answers).run();
+            System.exit(0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading a whole sample CSV file with CSV.parseLine, and writing its rows back out with CSV.writeLine
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVBenchmark {
+    @Param({Fixtures.MATRIC_DATA, Fixtures.UNI_DATA})
+    public String filename;
+
+    private List<List<String>> rows;
+    private String output;
+
+    @Setup
+    public void setUp() throws Exception {
+        CSV csv = new CSV(filename);
+        rows = new ArrayList<>();
+        try {
+            List<String> line;
+            while ((line = csv.parseLine()) != null) {
+                rows.add(line);
+            }
+        } finally {
+            csv.closeReader();
+        }
+        File file = File.createTempFile("csvbenchmark", ".csv");
+        file.deleteOnExit();
+        output = file.getPath();
+    }
+
+    @Benchmark
+    public int parseFile(Blackhole blackhole) throws Exception {
+        CSV csv = new CSV(filename);
+        int lines = 0;
+        try {
+            List<String> line;
+            while ((line = csv.parseLine()) != null) {
+                blackhole.consume(line);
+                lines++;
+            }
+        } finally {
+            csv.closeReader();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public int writeFile() throws Exception {
+        CSV csv = new CSV(output, rows.get(0));
+        try {
+            for (int i = 1; i < rows.size(); i++) {
+                csv.writeLine(rows.get(i));
+            }
+        } finally {
+            csv.closeWriter();
+        }
+        return rows.size();
+    }
+}
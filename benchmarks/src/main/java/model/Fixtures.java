@@ -0,0 +1,137 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the sample CSV files in the repository root for the benchmarks. The benchmarks have to be run from the
+ * repository root, as the lecturer controller names each table after its file.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class Fixtures {
+    public static final String MATRIC_DATA = "matricData.csv";
+    public static final String UNI_DATA = "uniData.csv";
+    public static final String STUDENTS = "students.csv";
+    public static final String QUESTIONS = "questions.csv";
+
+    private static boolean loaded;
+
+    /**
+     * Reads a CSV file, the first line is the column names and the second the column types
+     *
+     * @param filename  to read
+     * @param delimiter between values
+     * @return every line of the file
+     * @throws Exception if the file cannot be read
+     */
+    public static List<List<String>> readCsv(String filename, char delimiter) throws Exception {
+        CSV csv = new CSV(delimiter, filename);
+        List<List<String>> lines = new ArrayList<>();
+        try {
+            List<String> line;
+            while ((line = csv.parseLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            csv.closeReader();
+        }
+        return lines;
+    }
+
+    /**
+     * Converts the rows of a CSV file to the Java types MariaDB would return for them, INT columns become Integers
+     * and empty values NULL
+     *
+     * @param lines of the file, with the column names and types first
+     * @return the rows without the column names and types
+     */
+    public static List<List<Object>> typedRows(List<List<String>> lines) {
+        List<String> types = lines.get(1);
+        List<List<Object>> rows = new ArrayList<>(lines.size() - 2);
+        for (List<String> line : lines.subList(2, lines.size())) {
+            List<Object> row = new ArrayList<>(line.size());
+            for (int i = 0; i < line.size(); i++) {
+                String value = line.get(i);
+                if (value.isEmpty()) {
+                    row.add(null);
+                } else if (types.get(i).trim().toUpperCase().startsWith("INT")) {
+                    row.add(Integer.valueOf(value.trim()));
+                } else {
+                    row.add(value);
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Loads the data, students and questions into the configured MariaDB once per JVM, unless
+     * sqlmark.bench.load is false because they are already loaded
+     *
+     * @throws Error if the database cannot be reached or the files cannot be loaded
+     */
+    public static synchronized void loadDatabase() throws Error {
+        if (loaded || !Config.getBoolean("sqlmark.bench.load", true)) {
+            return;
+        }
+        controller.Lecturer lecturer = new controller.Lecturer();
+        lecturer.clearAll();
+        List<String> data = new ArrayList<>();
+        data.add(MATRIC_DATA);
+        data.add(UNI_DATA);
+        ImportReport report = lecturer.loadDataParallel(data);
+        if (!report.getFailures().isEmpty()) {
+            throw new Error("Couldn't load the benchmark data:\n" + report);
+        }
+        lecturer.loadStudents(STUDENTS);
+        lecturer.loadQuestions(QUESTIONS);
+        loaded = true;
+    }
+
+    /**
+     * Adds made up students until there are enough to simulate, as the sample file only has a few. They are named
+     * load00001, load00002 and so on, and ones already added by an earlier run are reused.
+     *
+     * @param studentNums already in the students table
+     * @param count       of students needed
+     * @return the student numbers, at least count of them
+     * @throws Error if the students cannot be added
+     */
+    public static List<String> addStudents(List<String> studentNums, int count) throws Error {
+        List<String> all = new ArrayList<>(studentNums);
+        Set<String> existing = new HashSet<>(studentNums);
+        List<String> added = new ArrayList<>();
+        for (int i = 1; all.size() < count; i++) {
+            String studentNum = String.format("load%05d", i);
+            if (!existing.contains(studentNum)) {
+                added.add(studentNum);
+                all.add(studentNum);
+            }
+        }
+        if (added.isEmpty()) {
+            return all;
+        }
+        Database db = new Database("admin_data");
+        try (PreparedStatement insert = db.getConnection()
+                .prepareStatement("INSERT INTO students (student_num, name) VALUES (?, ?);")) {
+            for (String studentNum : added) {
+                insert.setString(1, studentNum);
+                insert.setString(2, "Load " + studentNum.substring(4));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException e) {
+            throw new Error("Couldn't add the simulated students", e);
+        } finally {
+            db.close();
+        }
+        return all;
+    }
+}
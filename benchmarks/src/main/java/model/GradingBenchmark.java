@@ -0,0 +1,62 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks running a question's answer into a Dataset and grading it as a student's Answer, against the configured
+ * MariaDB loaded with the sample files
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingBenchmark {
+    /**
+     * Index into the questions of questions.csv
+     */
+    @Param({"0", "3", "5"})
+    public int question;
+
+    private Question target;
+    private String sql;
+
+    @Setup
+    public void setup() throws Exception {
+        Fixtures.loadDatabase();
+        List<List<String>> lines = Fixtures.readCsv(Fixtures.QUESTIONS, '|');
+        sql = lines.get(question + 2).get(2);
+        for (Question candidate : WorkingData.getQuestions()) {
+            if (candidate.getQuestionNum() == Integer.parseInt(lines.get(question + 2).get(0))) {
+                target = candidate;
+            }
+        }
+    }
+
+    @Benchmark
+    public Dataset runDataset() {
+        return new Dataset(sql);
+    }
+
+    @Benchmark
+    public Answer gradeAnswer() {
+        return new Answer(sql, target);
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building, comparing and printing a Dataset of the whole matricData table, without a database
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultBenchmark {
+    private List<String> columns;
+    private List<List<Object>> rows;
+    private Dataset expected;
+    private Dataset sameRowsShuffled;
+    private Dataset ordered;
+    private Dataset orderedCopy;
+
+    @Setup
+    public void setup() throws Exception {
+        List<List<String>> lines = Fixtures.readCsv(Fixtures.MATRIC_DATA, ',');
+        columns = lines.get(0);
+        rows = Fixtures.typedRows(lines);
+        List<List<Object>> shuffled = new ArrayList<>(rows);
+        Collections.shuffle(shuffled, new Random(42));
+        expected = new Dataset(columns, rows, false);
+        sameRowsShuffled = new Dataset(columns, shuffled, false);
+        ordered = new Dataset(columns, rows, true);
+        orderedCopy = new Dataset(columns, new ArrayList<>(rows), true);
+    }
+
+    @Benchmark
+    public Dataset construct() {
+        return new Dataset(columns, rows, false);
+    }
+
+    @Benchmark
+    public boolean equalsUnordered() {
+        return sameRowsShuffled.equals(expected);
+    }
+
+    @Benchmark
+    public boolean equalsOrdered() {
+        return orderedCopy.equals(ordered);
+    }
+
+    @Benchmark
+    public String toStringAll() {
+        return expected.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building INSERT and SELECT statements with Database.prepareInsert and prepareSelect. Nothing is executed,
+ * but a Database needs a connection, so this needs the configured MariaDB.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SQLBuildingBenchmark {
+    private Database db;
+    private List<String> columns;
+    private List<String> row;
+    private Map<String, Object> where;
+
+    @Setup
+    public void setup() throws Exception {
+        List<List<String>> lines = Fixtures.readCsv(Fixtures.MATRIC_DATA, ',');
+        columns = lines.get(0);
+        row = lines.get(2);
+        where = new LinkedHashMap<>();
+        where.put("StuID", row.get(0));
+        where.put("LastName", row.get(3));
+        db = new Database("data_store");
+    }
+
+    @TearDown
+    public void tearDown() throws Error {
+        db.close();
+    }
+
+    @Benchmark
+    public Database prepareInsert() {
+        db.prepareInsert("matricData", columns, row);
+        return db;
+    }
+
+    @Benchmark
+    public Database prepareSelect() {
+        db.prepareSelect("matricData", where, 30);
+        return db;
+    }
+}
@@ -3,9 +3,15 @@ package controller;
 import model.*;
 import model.Error;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The class the lecturer uses to enter in information pertaining to the assignment
@@ -34,13 +40,15 @@ public class Lecturer {
     }
 
     /**
-     * Clears all admin_data databases
+     * Clears all admin_data databases, data_store is untouched so the data version stays the same
      * @return output from the clear function
      * @throws Error if it can't delete
      */
     public String clearAdminData() throws Error{
         Database db = new Database("");
-        return db.clearAdmin();
+        String message = db.clearAdmin();
+        db.close();
+        return message;
     }
 
     /**
@@ -50,7 +58,10 @@ public class Lecturer {
      */
     public String clearAll() throws Error{
         Database db = new Database("");
-        return db.clearAll();
+        String message = db.clearAll();
+        db.close();
+        DataVersion.bump();
+        return message;
     }
     /**
      * Clears the data from the a specific database
@@ -59,8 +70,14 @@ public class Lecturer {
      * @throws Error if cannot delete
      */
     public String clear(String tableName) throws Error{
+        boolean dataStore = WorkingData.getTables().contains(tableName);
         Database db = new Database();
-        return db.clear(tableName);
+        String message = db.clear(tableName);
+        db.close();
+        if (dataStore) {
+            DataVersion.bump();
+        }
+        return message;
     }
 
     //TODO Make this use the same name as the database
@@ -70,6 +87,75 @@ public class Lecturer {
      * @throws Error if the file reader breaks
      */
     public void loadData(String filename) throws Error{
+        loadData(filename, null);
+    }
+
+    /**
+     * Takes in a file and loads the data to run the assignment with, reporting progress after every batch
+     * @param filename to load in
+     * @param progress listener, null for none
+     * @return the loader, with the row count and throughput
+     * @throws Error if the file reader breaks
+     */
+    public BulkLoader loadData(String filename, BulkLoader.Progress progress) throws Error{
+        BulkLoader loader = loadTable(filename, progress);
+        DataVersion.bump();
+        return loader;
+    }
+
+    /**
+     * Loads several data files at once, each into its own table on its own pooled connection.
+     * A file that fails does not stop the others, its error is recorded in the report instead.
+     * The number of files loaded at the same time is set by sqlmark.import.threads (default: number of processors),
+     * and is never more than half the connection pool.
+     * @param filenames to load in
+     * @return the rows, time and throughput of each file, and the total time
+     * @throws Error if the data version cannot be updated afterwards
+     */
+    public ImportReport loadDataParallel(List<String> filenames) throws Error{
+        ImportReport report = new ImportReport();
+        if (filenames.isEmpty()) {
+            return report;
+        }
+        // Each load holds two pooled connections at once, its own and the one that updates the table list, so more
+        // loads than half the pool could all be waiting for their second connection
+        int threads = Math.min(Math.min(filenames.size(), ConnectionPool.getInstance().getMaxSize() / 2),
+                Config.getInt("sqlmark.import.threads", Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        long start = System.nanoTime();
+        try {
+            List<Future<BulkLoader>> loads = new ArrayList<>();
+            for (String filename : filenames) {
+                loads.add(executor.submit(() -> loadTable(filename, null)));
+            }
+            for (int i = 0; i < filenames.size(); i++) {
+                try {
+                    BulkLoader loader = loads.get(i).get();
+                    report.add(new ImportReport.FileResult(filenames.get(i), loader.getRows(), loader.getSeconds()));
+                } catch (ExecutionException e) {
+                    Error error = e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+                    report.add(new ImportReport.FileResult(filenames.get(i), 0, 0, error));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new Error("Interrupted loading data files", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            report.setWallSeconds((System.nanoTime() - start) / 1e9);
+            DataVersion.bump();
+        }
+        return report;
+    }
+
+    /**
+     * Loads a data file into the table named after it
+     * @param filename to load in
+     * @param progress listener, null for none
+     * @return the loader, with the row count and throughput
+     * @throws Error if the file reader breaks
+     */
+    private BulkLoader loadTable(String filename, BulkLoader.Progress progress) throws Error{
         try{
             CSV csvReader = new CSV(filename);
             String tablename = filename;
@@ -77,17 +163,7 @@ public class Lecturer {
                 //get rid of the csv part and simply use the filename
                 tablename = filename.substring(0,filename.length()-4);
             }
-            List<String> columnNames = csvReader.parseLine();
-            List<String> columnTypes = csvReader.parseLine();
-            Database db = new Database();
-            db.prepareCreate(columnNames, columnTypes,tablename);
-            db.execute();
-            List<String> input = csvReader.parseLine();
-            while(input!=null){
-                db.prepareInsert(input);
-                db.execute();
-                input = csvReader.parseLine();
-            }
+            return load(csvReader, new Database(), tablename, progress);
         }catch (Exception e){
             throw new Error("Couldn't read file "+filename,e);
         }
@@ -102,18 +178,7 @@ public class Lecturer {
     public void loadQuestions(String filename) throws Error{
         try{
             CSV csvReader = new CSV('|', filename);
-            List<String> columnNames = csvReader.parseLine();
-            List<String> columnTypes = csvReader.parseLine();
-            Database db = new Database("admin_data");
-            String tableName = "questions";
-            db.prepareCreate(columnNames, columnTypes, tableName);
-            db.execute();
-            List<String> input = csvReader.parseLine();
-            while(input!=null){
-                db.prepareInsert(input);
-                db.execute();
-                input = csvReader.parseLine();
-            }
+            load(csvReader, new Database("admin_data"), "questions", null);
         }catch(Exception e){
             throw new Error("Couldn't read filename "+filename,e);
         }
@@ -122,6 +187,15 @@ public class Lecturer {
 
 
 
+    /**
+     * Generates every student's data download in the background, so downloads are a file copy once a lab starts
+     * @return a future that completes once every download is ready
+     * @throws Error if the students cannot be read
+     */
+    public CompletableFuture<Void> prepareDownloads() throws Error{
+        return DataPackCache.getInstance().pregenerate(WorkingData.getStudentNumbers());
+    }
+
     /**
      * Takes in the filename for the students
      * @param filename students to read
@@ -130,45 +204,83 @@ public class Lecturer {
     public void loadStudents(String filename) throws Error{
         CSV csvReader = new CSV(filename);
         try {
-            List<String> columNames = csvReader.parseLine();
-            Database db = new Database("admin_data");
-            List<String> columnTypes = csvReader.parseLine();
-            String tableName = "students";
-            db.prepareCreate(columNames, columnTypes,tableName);
-            db.execute();
-            List<String> input = csvReader.parseLine();
-            while (input != null) {
-                db.prepareInsert(input);
-                db.execute();
-                input = csvReader.parseLine();
-            }
+            load(csvReader, new Database("admin_data"), "students", null);
         }catch(Exception e){
             throw new Error("Couldn't load csv file "+filename,e);
         }
     }
 
-    //TODO Make This Get the Mark
+    /**
+     * Creates the table described by the first two lines of the CSV (column names and types), then bulk loads the
+     * rest of the file into it
+     * @param csvReader to read from
+     * @param db connected to the database the table belongs in, closed once the load is done
+     * @param tableName to create and load
+     * @param progress listener, null for none
+     * @return the loader, with the row count and throughput
+     * @throws Exception if the file or the database break
+     */
+    private BulkLoader load(CSV csvReader, Database db, String tableName, BulkLoader.Progress progress)
+            throws Exception{
+        try {
+            List<String> columnNames = csvReader.parseLine();
+            List<String> columnTypes = csvReader.parseLine();
+            db.prepareCreate(columnNames, columnTypes, tableName);
+            db.execute();
+            BulkLoader loader = new BulkLoader(db, tableName, columnNames);
+            loader.setProgress(progress);
+            loader.load(csvReader);
+            return loader;
+        } finally {
+            db.close();
+            csvReader.closeReader();
+        }
+    }
+
      /**
      * Outputs all the students with their highest mark to the filename inputted
      * @param filename to write to
      * @throws Error if there is an issue writing to the file
      */
     public void exportStudents(String filename) throws Error{
-        List<String> heading = new ArrayList<>();
-        heading.add("student_num");
-        heading.add("highest_mark");
-        try{
-            CSV csv = new CSV(filename,heading);
-            // TODO: Export students and marks to CSV
-            for(model.Student student : studentModels) {
-                List<String> row = new ArrayList<>();
-                row.add(student.getStudentNum());
-                row.add(student.getHighestMark()+"");
-                csv.writeLine(row);
+        exportStudents(filename, false);
+    }
+
+    /**
+     * Outputs all the students with their highest mark to the filename inputted, the marks are worked out by the
+     * database rather than by loading every submission
+     * @param filename to write to
+     * @param perQuestion whether to add the student's best mark for each question
+     * @throws Error if there is an issue reading the marks or writing to the file
+     */
+    public void exportStudents(String filename, boolean perQuestion) throws Error{
+        List<Integer> questionNums = new ArrayList<>();
+        if (perQuestion) {
+            for (Question question : assignmentModel.getQuestions()) {
+                questionNums.add(question.getQuestionNum());
+            }
+        }
+        MarkExporter exporter = new MarkExporter(questionNums);
+        CSV csv = new CSV(filename, exporter.getHeading());
+        Database db = new Database("admin_data");
+        Error failure = null;
+        try {
+            exporter.export(db, csv);
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            db.close();
+            try {
+                csv.closeWriter();
+            } catch (IOException e) {
+                // Reported with the export failure if there was one, so it does not hide the cause
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else {
+                    throw new Error("Couldn't write to the file "+filename, e);
+                }
             }
-            csv.closeWriter();
-        }catch(Exception e){
-            throw new Error("Couldn't find the file "+filename, e);
         }
     }
 
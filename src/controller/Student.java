@@ -2,13 +2,16 @@ package controller;
 
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
+import model.Answer;
+import model.DataPackCache;
 import model.Error;
+import model.GradingEngine;
+import model.Question;
 import model.Submission;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class for each student, created when the student logs in
@@ -51,24 +54,30 @@ public class Student {
     }
 
     /**
-     * Get the data given to the student for the assignment
+     * Asks the student where to save the data given to them for the assignment
      *
      * @param window pop up interface
-     * @throws Error if there is an issue making the .sql file
+     * @return the file chosen, null if the student cancelled
      */
-    public void getData(Window window) throws Error {
+    public File chooseDataFile(Window window) {
+        String extension = DataPackCache.getInstance().isCompressed() ? "*.sql.gz" : "*.sql";
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Choose location to save SQL file");
-        fileChooser.setInitialFileName("exampleData.sql");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("sql file (*.sql)", "*.sql"));
-        File file = fileChooser.showSaveDialog(window);
-        if (file != null) {
-            try (PrintWriter outFile = new PrintWriter(file)) {
-                outFile.print(assignmentModel.getRandomData());
-            } catch (FileNotFoundException e) {
-                throw new Error(e);
-            }
-        }
+        fileChooser.setInitialFileName("exampleData" + extension.substring(1));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("sql file (" + extension + ")",
+                extension));
+        return fileChooser.showSaveDialog(window);
+    }
+
+    /**
+     * Saves the data given to the student for the assignment, copied from the DataPackCache. The pack is generated
+     * first if it is not cached, so this should not be called on the JavaFX Application Thread.
+     *
+     * @param file to save the data to
+     * @throws Error if there is an issue making the .sql file
+     */
+    public void saveData(File file) throws Error {
+        DataPackCache.getInstance().copyTo(getStudentNum(), file.toPath());
     }
 
     /**
@@ -92,12 +101,30 @@ public class Student {
     }
 
     /**
-     * Adds the student's answer to the students, gets the next question
+     * Adds the student's answer to the students, gets the next question.
+     * The answer is graded in the background by the GradingEngine, so this returns straight away. An answer that
+     * cannot be graded is kept in the submission with a mark of 0, so the rest of the submission can still be saved.
      *
      * @param answer the student entered
+     * @return the graded answer once it has been run, completed exceptionally if it could not be graded
+     */
+    public CompletableFuture<Answer> answerQuestion(String answer) {
+        Question question = currentSubmission.getNextQuestion();
+        CompletableFuture<Answer> graded = GradingEngine.getInstance().submit(getStudentNum(), question, answer);
+        currentSubmission.addAnswer(graded.exceptionally(error -> {
+            Throwable cause = error.getCause() == null ? error : error.getCause();
+            return new Answer(answer, question, 0, "Your answer could not be graded: " + cause.getMessage(), -1);
+        }));
+        return graded;
+    }
+
+    /**
+     * Gets a future that completes once every answer given so far has been graded
+     *
+     * @return the future
      */
-    public void answerQuestion(String answer) {
-        currentSubmission.addAnswer(new model.Answer(answer, currentSubmission.getNextQuestion()));
+    public CompletableFuture<Void> whenGraded() {
+        return currentSubmission.whenGraded();
     }
 
     /**
@@ -137,4 +164,15 @@ public class Student {
     public List<Submission> getPastSubmissions() {
         return studentModel.getSubmissions();
     }
+
+    /**
+     * Marks a past submission again against the current data, the saved marks are not changed
+     *
+     * @param submission to mark again
+     * @return a copy of the submission whose answers are being graded in the background
+     * @throws Error if the submission could not be read
+     */
+    public Submission regrade(Submission submission) throws Error {
+        return submission.regrade(getStudentNum());
+    }
 }
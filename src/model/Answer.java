@@ -7,9 +7,13 @@ package model;
  */
 public class Answer {
     private String answer;
-    private Dataset output;
     private int mark;
     private Question question;
+    private String compileMessage;
+    private int dataVersion;
+    private ResultFingerprint fingerprint;
+    private String summary;
+    private Dataset output;
 
     /**
      * Question number
@@ -29,31 +33,72 @@ public class Answer {
 
     /**
      * Returns the feedback for the student, dependent on the level of verbosity specified by the lecturer.
+     * Only the fingerprint of the output is kept after grading, so verbose feedback shows its preview. An answer loaded
+     * from the database has no preview until its full output is asked for.
      * @return feedback (string)
      */
     public String getFeedback() {
         switch (question.getFeedbackType()) {
             case COMPILE:
-                return output.getCompileMessage();
+                return compileMessage;
             case VERBOSE:
-                return String.format("Your Input:\n%s\n\n%s\nExpected output:\n%s\nYour output:\n%s",
+                String preview;
+                String difference;
+                synchronized (this) {
+                    preview = fingerprint != null ? fingerprint.getPreview()
+                            : "Not kept, show the full output to run your answer again\n";
+                    difference = summary == null ? "" : summary;
+                }
+                return String.format("Your Input:\n%s\n\n%s\n%s\nExpected output:\n%s\nYour output:\n%s",
                         getAnswerText(),
-                        output.getCompileMessage(),
+                        compileMessage,
+                        difference,
                         question.getCorrectAnswer().toString(),
-                        output.toString());
+                        preview);
             default:
                 return "";
         }
     }
 
+    /**
+     * Returns every row of the output, not just the preview. The answer is run again the first time this is called
+     * and the output kept for later calls.
+     * @return the full output
+     * @throws Error if there was no sandbox or connection to run the answer on
+     */
+    public synchronized String getFullOutput() throws Error {
+        if (output == null) {
+            try {
+                output = run();
+            } catch (UnavailableException e) {
+                throw new Error("Couldn't run your answer again: " + e.getMessage(), e);
+            }
+            if (fingerprint == null) {
+                fingerprint = ResultFingerprint.of(output);
+                summary = ResultComparison.compare(question.getCorrectAnswer(), output).getSummary();
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Returns whether the lecturer lets the student see the output of this answer
+     * @return true if the question gives verbose feedback
+     */
+    public boolean hasOutputFeedback() {
+        return question.getFeedbackType() == Question.FeedbackType.VERBOSE;
+    }
+
     /**
      * Calculates the student's mark for the question
+     * @param output of the answer
+     * @param comparison of the output with the expected output
      * @return the mark as an int
      */
-    private int calculateMark() {
+    private int calculateMark(Dataset output, ResultComparison comparison) {
         switch (output.getCompileStatus()) {
             case SUCCESS:
-                if (output.equals(question.getCorrectAnswer())) {
+                if (comparison.isEqual()) {
 
                     return 2;
                 }
@@ -64,16 +109,84 @@ public class Answer {
     }
 
     /**
-     * Takes in an answer and a question, stores them
+     * Gets the output of the answer. An answer that is canonically the same as the correct answer, with its select
+     * list written the same way, is not run and has the correct answer's output, otherwise it is run through the
+     * ResultCache.
+     * @return the output
+     * @throws UnavailableException if there was no sandbox or connection to run it on
+     */
+    private Dataset run() {
+        if (question.isAnswer(answer)) {
+            Metrics.getInstance().increment("fastpath_matches");
+            return question.getCorrectAnswer();
+        }
+        return ResultCache.getInstance().run(answer);
+    }
+
+    /**
+     * Takes in an answer and a question, grades the answer and keeps a fingerprint of its output
      * @param answer to be stored
      * @param question to be stored
+     * @throws UnavailableException if there was no sandbox or connection to run it on, so it cannot be graded
      */
     public Answer(String answer, Question question){
         this.answer = answer;
         this.question = question;
+        try {
+            // Read first, so an answer run while the data changes is graded again rather than marked as up to date
+            this.dataVersion = DataVersion.current();
+        } catch (Error e) {
+            // Unknown, so the answer is always treated as out of date
+            this.dataVersion = -1;
+        }
+
+        Dataset output = run();
+        Dataset expected = question.getCorrectAnswer();
+        long start = System.nanoTime();
+        ResultComparison comparison = ResultComparison.compare(expected, output);
+        Metrics.getInstance().recordSince("compare", start);
+        this.mark = calculateMark(output, comparison);
+        this.compileMessage = output.getCompileMessage();
+        this.fingerprint = ResultFingerprint.of(output);
+        this.summary = comparison.getSummary();
+    }
+
+    /**
+     * Creates an answer that was already graded and saved, the answer is only run again if the student asks for its
+     * full output
+     * @param answer the student entered
+     * @param question it answers
+     * @param mark it was given
+     * @param compileMessage it produced
+     * @param dataVersion it was graded against
+     */
+    public Answer(String answer, Question question, int mark, String compileMessage, int dataVersion){
+        this.answer = answer;
+        this.question = question;
+        this.mark = mark;
+        this.compileMessage = compileMessage;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * @return the fingerprint of the output, null if the answer was loaded from the database without being run
+     */
+    public synchronized ResultFingerprint getFingerprint() {
+        return fingerprint;
+    }
 
-        this.output = new Dataset(answer);
-        this.mark = calculateMark();
+    /**
+     * @return the message the answer produced when it was run
+     */
+    public String getCompileMessage() {
+        return compileMessage;
+    }
+
+    /**
+     * @return the DataVersion the answer was graded against, -1 if unknown
+     */
+    public int getDataVersion() {
+        return dataVersion;
     }
 
 
@@ -1,6 +1,8 @@
 package model;
 
+import java.io.Writer;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Creates an assignment of questions
@@ -57,24 +59,40 @@ public class Assignment {
     }
 
     /**
-     * Creates random data for the user
-     * TODO
-     * @return random data
-     * @throws Error cannot get data from DB
+     * Writes a random sample of every data table for the user, as SQL they can load into their own database.
+     * The sample is the same each time for a student until the data is reloaded.
+     * @param out to write the SQL to, should be buffered
+     * @param studentNum the sample is for, null for a different sample every time
+     * @throws Error cannot get data from DB or write it
+     * @see DataPackCache
      */
-    public String getRandomData() throws Error {
-        Database db = new Database();
-        StringBuilder sqlString = new StringBuilder();
+    public void getRandomData(Writer out, String studentNum) throws Error {
+        writeRandomData(out, studentNum, studentNum == null ? 0 : DataVersion.current());
+    }
 
-        for (String table : WorkingData.getTables()) {
-            db.prepareSelect(table, null, 30, true);
-            db.execute();
-            sqlString.append(db.exportToSQL());
-            db.closeRS();
+    /**
+     * Writes a random sample of every data table as SQL
+     * @param out to write the SQL to, should be buffered
+     * @param studentNum the sample is for, null for a different sample every time
+     * @param dataVersion the sample is taken from
+     * @throws Error cannot get data from DB or write it
+     * @see DataSampler
+     */
+    public static void writeRandomData(Writer out, String studentNum, int dataVersion) throws Error {
+        Database db = new Database();
+        try {
+            SQLExporter exporter = new SQLExporter(out);
+            DataSampler sampler = new DataSampler(db);
+            Random random = new Random();
+            for (String table : WorkingData.getTables()) {
+                long seed = studentNum == null ? random.nextLong()
+                        : DataSampler.seedFor(studentNum, dataVersion, table);
+                DataSampler.Sample sample = sampler.sample(table, seed);
+                exporter.writeCreate(db, table);
+                exporter.writeRows(table, sample.getColumns(), sample.getRows());
+            }
+        } finally {
+            db.close();
         }
-        db.close();
-        return sqlString.toString();
     }
-
-
 }
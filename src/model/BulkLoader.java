@@ -0,0 +1,215 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Streams rows from a CSV file into a table using batched prepared inserts, committing once per batch.
+ * With rewriteBatchedStatements on (the ConnectionPool default) each batch is sent as one multi-row INSERT.
+ * <p>
+ * Settings: sqlmark.load.batch rows per batch (default 1000)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class BulkLoader {
+    private final Database db;
+    private final String tableName;
+    private final List<String> columns;
+    private final int batchSize;
+    private Progress progress;
+    private long rows;
+    private long elapsedNanos;
+
+    /**
+     * Receives progress updates after every batch
+     */
+    public interface Progress {
+        /**
+         * Called after a batch is committed
+         *
+         * @param tableName     being loaded
+         * @param rows          loaded so far
+         * @param rowsPerSecond throughput so far
+         */
+        void update(String tableName, long rows, double rowsPerSecond);
+    }
+
+    /**
+     * Creates a loader with the configured batch size
+     *
+     * @param db        connected to the database the table is in
+     * @param tableName to load into
+     * @param columns   of the table, in the order they appear in the CSV
+     */
+    public BulkLoader(Database db, String tableName, List<String> columns) {
+        this(db, tableName, columns, Config.getInt("sqlmark.load.batch", 1000));
+    }
+
+    /**
+     * Creates a loader
+     *
+     * @param db        connected to the database the table is in
+     * @param tableName to load into
+     * @param columns   of the table, in the order they appear in the CSV
+     * @param batchSize rows per batch and transaction
+     */
+    public BulkLoader(Database db, String tableName, List<String> columns, int batchSize) {
+        this.db = db;
+        this.tableName = tableName;
+        this.columns = columns;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets where progress is reported
+     *
+     * @param progress listener, null for none
+     */
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Inserts every remaining line of the CSV, rows that clash with an existing primary key are skipped.
+     * Batches that were committed before a failure stay loaded.
+     *
+     * @param csv positioned at the first row of data
+     * @return the number of rows read
+     * @throws Error if a row cannot be read or inserted
+     */
+    public long load(CSV csv) throws Error {
+        long start = System.nanoTime();
+        Connection connection = db.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(insertSQL())) {
+                int inBatch = 0;
+                List<String> row = nextRow(csv);
+                while (row != null) {
+                    if (row.size() != columns.size()) {
+                        throw new Error("Row " + (rows + 1) + " of " + tableName + " has " + row.size()
+                                + " values but there are " + columns.size() + " columns");
+                    }
+                    for (int i = 0; i < row.size(); i++) {
+                        insert.setString(i + 1, row.get(i));
+                    }
+                    insert.addBatch();
+                    inBatch++;
+                    rows++;
+                    if (inBatch == batchSize) {
+                        commit(connection, insert, start);
+                        inBatch = 0;
+                    }
+                    row = nextRow(csv);
+                }
+                if (inBatch > 0) {
+                    commit(connection, insert, start);
+                }
+            }
+        } catch (SQLException | Error e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e instanceof Error ? (Error) e : new Error("Couldn't load " + tableName + " near row " + rows, e);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the number of rows read so far
+     *
+     * @return rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the time the last load took
+     *
+     * @return elapsed time in seconds
+     */
+    public double getSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * Gets the throughput of the last load
+     *
+     * @return rows per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows / getSeconds();
+    }
+
+    /**
+     * Sends the current batch and commits it
+     *
+     * @param connection the batch is on
+     * @param insert     holding the batch
+     * @param start      of the load, for throughput
+     * @throws SQLException if the batch fails
+     */
+    private void commit(Connection connection, PreparedStatement insert, long start) throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+        if (progress != null) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            progress.update(tableName, rows, seconds == 0 ? 0 : rows / seconds);
+        }
+    }
+
+    /**
+     * Reads the next row
+     *
+     * @param csv to read from
+     * @return the row, or null at the end of the file
+     * @throws Error if the line cannot be read
+     */
+    private List<String> nextRow(CSV csv) throws Error {
+        try {
+            return csv.parseLine();
+        } catch (Exception e) {
+            throw new Error("Couldn't read row " + (rows + 1) + " of " + tableName, e);
+        }
+    }
+
+    /**
+     * Builds the parameterised insert, column names with spaces are quoted the same way as in Database.prepareCreate
+     *
+     * @return the insert statement
+     */
+    private String insertSQL() {
+        StringBuilder insertStatement = new StringBuilder();
+        insertStatement.append("INSERT IGNORE INTO ").append(tableName).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                insertStatement.append(", ");
+            }
+            String column = columns.get(i);
+            if (column.contains(" ")) {
+                insertStatement.append("\"").append(column).append("\"");
+            } else {
+                insertStatement.append(column);
+            }
+        }
+        insertStatement.append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            insertStatement.append(i == 0 ? "?" : ", ?");
+        }
+        insertStatement.append(")");
+        return insertStatement.toString();
+    }
+}
@@ -6,10 +6,17 @@ import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 /**
- * Implementation of the OpenCSV CSVReader
+ * Implementation of the OpenCSV CSVReader, and a buffered RFC 4180 writer. Fields that contain the delimiter, a quote
+ * or a line break are quoted when written, with quotes inside them doubled. Lines are not flushed as they are written,
+ * call flush() or closeWriter() to make sure everything is on disk.
  * @author Angus Mackenzie
  * @version 05/09/2018
  * @see CSVReader
@@ -23,6 +30,13 @@ public class CSV {
     private Writer dataWriter;
     private char delimiter;
     private File file;
+    private boolean gzip;
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * Size of the write buffer, in characters for the writer and bytes for gzip
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
     /**
      * Takes in filename, checks if it is correct, otherwise creates a reader
      * @param filename of the csv file to read
@@ -67,17 +81,33 @@ public class CSV {
      * @throws Error if can't write to file
      */
     public CSV(String outputFile, List<String> heading) throws Error{
-        this.filename = checkFileName(outputFile);
+        this(outputFile, heading, ',', false);
+    }
+
+    /**
+     * Takes in a file path, and writes the firstLine of the CSV using the specified delimiter, optionally gzipped
+     * @param outputFile to file, .gz is added to the name if it is gzipped
+     * @param heading of the CSV file to be written
+     * @param delimiter to separate values with
+     * @param gzip whether to compress the file
+     * @throws Error if can't write to file
+     */
+    public CSV(String outputFile, List<String> heading, char delimiter, boolean gzip) throws Error{
+        this.delimiter = delimiter;
+        this.gzip = gzip;
+        this.filename = checkFileName(outputFile.endsWith(".gz") ? outputFile.substring(0, outputFile.length() - 3)
+                : outputFile) + (gzip ? ".gz" : "");
         try{
-            this.file = new File(outputFile);
-            if (!file.exists()) {
-                file.createNewFile();
+            this.file = new File(filename);
+            OutputStream out = new FileOutputStream(file);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE, true);
             }
-            dataWriter = new BufferedWriter(new FileWriter(new File(filename)));
+            dataWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
             writeLine(heading);
             isOpen = true;
         }catch(Exception e){
-            throw new Error("Could not write to file "+filename, e.getCause());
+            throw new Error("Could not write to file "+filename, e);
         }
     }
 
@@ -100,29 +130,87 @@ public class CSV {
 
 
     /**
-     * Writes a line of a CSV file
-     * @param values the values to be separated by commas
-     * @throws Exception if can't write
+     * Writes a line of a CSV file, the line is buffered rather than flushed to the file
+     * @param values the values to be separated by the delimiter, null is written as an empty value
+     * @throws IOException if can't write
      */
-    public void writeLine(List<String> values) throws Exception {
-        boolean firstVal = true;
-        for (String val : values) {
-            if (!firstVal) {
-                dataWriter.write(",");
+    public void writeLine(List<String> values) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(delimiter);
             }
-            //dataWriter.write("\"");
-            for (int i=0; i<val.length(); i++) {
-                char ch = val.charAt(i);
-                if (ch=='\"') {
-                    dataWriter.write("\"");  //extra quote
+            appendField(values.get(i));
+        }
+        line.append('\n');
+        dataWriter.append(line);
+    }
+
+    /**
+     * Writes every remaining row of a result set, the rows are written as they are read so a streamed result set is
+     * never held in memory
+     * @param rs to write the rows of
+     * @return the number of rows written
+     * @throws Error if the rows cannot be read or written
+     */
+    public long writeAll(ResultSet rs) throws Error {
+        try {
+            int columns = rs.getMetaData().getColumnCount();
+            long rows = 0;
+            while (rs.next()) {
+                line.setLength(0);
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        line.append(delimiter);
+                    }
+                    appendField(rs.getString(i));
                 }
-                dataWriter.write(ch);
+                line.append('\n');
+                dataWriter.append(line);
+                rows++;
             }
-            //dataWriter.write("\"");
-            firstVal = false;
+            return rows;
+        } catch (SQLException | IOException e) {
+            throw new Error("Could not write results to file " + filename, e);
+        }
+    }
+
+    /**
+     * Adds a value to the line being written, quoting it if it contains the delimiter, a quote or a line break
+     * @param value to add, may be null
+     */
+    private void appendField(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == delimiter || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                line.append('"');
+            }
+            line.append(ch);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Writes out any buffered lines to the file
+     * @throws IOException if can't write
+     */
+    public void flush() throws IOException {
+        if (dataWriter != null) {
+            dataWriter.flush();
         }
-        dataWriter.write("\n");
-        dataWriter.flush();
     }
 
 
@@ -139,8 +227,9 @@ public class CSV {
      * @throws IOException if it cannot close the writer
      */
     public void closeWriter() throws IOException{
-        if(isOpen){
+        if(isOpen && dataWriter != null){
             dataWriter.close();
+            dataWriter = null;
         }
     }
 
@@ -163,17 +252,21 @@ public class CSV {
     }
 
     /**
-     * Returns the number of lines in the specified file
+     * Returns the number of lines in the specified file, flushing anything still buffered first. A gzipped file that
+     * is still being written has no trailer yet, so its lines are counted up to the last flush.
      * @return number of lines
      * @throws IOException if it cant find the file
      * @see <a href="https://stackoverflow.com/questions/453018/number-of-lines-in-a-file-in-java">https://stackoverflow.com/questions/453018/number-of-lines-in-a-file-in-java</a>
      */
     public int countLines() throws IOException {
-        InputStream is = new BufferedInputStream(new FileInputStream(filename));
+        flush();
+        // GZIPInputStream buffers itself, and a BufferedInputStream over it would read past the last flush
+        InputStream is = gzip ? new GZIPInputStream(new FileInputStream(filename), BUFFER_SIZE)
+                : new BufferedInputStream(new FileInputStream(filename));
         try {
             byte[] c = new byte[1024];
 
-            int readChars = is.read(c);
+            int readChars = read(is, c);
             if (readChars == -1) {
                 // bail out if nothing to read
                 return 0;
@@ -187,7 +280,7 @@ public class CSV {
                         ++count;
                     }
                 }
-                readChars = is.read(c);
+                readChars = read(is, c);
             }
 
             // count remaining characters
@@ -197,7 +290,7 @@ public class CSV {
                         ++count;
                     }
                 }
-                readChars = is.read(c);
+                readChars = read(is, c);
             }
 
             return count == 0 ? 1 : count;
@@ -205,6 +298,25 @@ public class CSV {
             is.close();
         }
     }
+
+    /**
+     * Reads the next block of the file, treating the missing gzip trailer of a file still being written as its end
+     * @param is to read from
+     * @param c buffer to read into
+     * @return number of bytes read, or -1 at the end
+     * @throws IOException if the file cannot be read
+     */
+    private int read(InputStream is, byte[] c) throws IOException {
+        try {
+            return is.read(c);
+        } catch (EOFException e) {
+            if (gzip && dataWriter != null) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
     protected boolean deleteFile(){
         return file.delete();
     }
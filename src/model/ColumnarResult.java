@@ -0,0 +1,384 @@
+package model;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds a query result column by column. Integer, long and double columns are kept in primitive arrays, strings are
+ * dictionary encoded so repeated values are stored once, and nulls are kept in a bitmap. Any other type is kept as the
+ * object the driver returned. Values are handed back as the same objects ResultSet.getObject would have returned, so
+ * results compare exactly as they did when every cell was stored as an Object.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ColumnarResult {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String[] names;
+    private final Column[] columns;
+    private int rows;
+
+    /**
+     * Storage for one column
+     */
+    private abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+
+        /**
+         * Reads the column's value for the current row of the result set
+         *
+         * @param rs    positioned on the row
+         * @param index of the column, from 1
+         * @param row   being added
+         * @return the estimated size of the value in bytes
+         * @throws SQLException if the value cannot be read
+         */
+        abstract long read(ResultSet rs, int index, int row) throws SQLException;
+
+        /**
+         * Adds a value that is already in memory
+         *
+         * @param value to add, may be null
+         * @param row   being added
+         */
+        abstract void add(Object value, int row);
+
+        /**
+         * Gets a value
+         *
+         * @param row index
+         * @return the value, null if it was NULL
+         */
+        abstract Object get(int row);
+
+        /**
+         * Shrinks the storage to the number of rows
+         *
+         * @param rows in the result
+         */
+        abstract void trim(int rows);
+    }
+
+    /**
+     * An INT column
+     */
+    private static class IntColumn extends Column {
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        long read(ResultSet rs, int index, int row) throws SQLException {
+            int value = rs.getInt(index);
+            store(rs.wasNull() ? null : value, row);
+            return 4;
+        }
+
+        void add(Object value, int row) {
+            store((Integer) value, row);
+        }
+
+        private void store(Integer value, int row) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : Integer.valueOf(values[row]);
+        }
+
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+    }
+
+    /**
+     * A BIGINT column, or a count
+     */
+    private static class LongColumn extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        long read(ResultSet rs, int index, int row) throws SQLException {
+            long value = rs.getLong(index);
+            store(rs.wasNull() ? null : value, row);
+            return 8;
+        }
+
+        void add(Object value, int row) {
+            store((Long) value, row);
+        }
+
+        private void store(Long value, int row) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : Long.valueOf(values[row]);
+        }
+
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+    }
+
+    /**
+     * A DOUBLE column
+     */
+    private static class DoubleColumn extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        long read(ResultSet rs, int index, int row) throws SQLException {
+            double value = rs.getDouble(index);
+            store(rs.wasNull() ? null : value, row);
+            return 8;
+        }
+
+        void add(Object value, int row) {
+            store((Double) value, row);
+        }
+
+        private void store(Double value, int row) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : Double.valueOf(values[row]);
+        }
+
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+    }
+
+    /**
+     * A text column, each distinct value is stored once and rows hold an index into the dictionary
+     */
+    private static class StringColumn extends Column {
+        private Map<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> dictionary = new ArrayList<>();
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        long read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            store(value, row);
+            return value == null ? 0 : 2L * value.length();
+        }
+
+        void add(Object value, int row) {
+            store((String) value, row);
+        }
+
+        private void store(String value, int row) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                Integer code = codes.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    codes.put(value, code);
+                }
+                values[row] = code;
+            }
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : dictionary.get(values[row]);
+        }
+
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+            dictionary.trimToSize();
+            // Only needed while rows are added, a cached result would otherwise keep every value twice
+            codes = null;
+        }
+    }
+
+    /**
+     * Any other type, kept as the object the driver returned
+     */
+    private static class ObjectColumn extends Column {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        long read(ResultSet rs, int index, int row) throws SQLException {
+            Object value = rs.getObject(index);
+            add(value, row);
+            return ExecutionLimits.sizeOf(value);
+        }
+
+        void add(Object value, int row) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            }
+            values[row] = value;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+    }
+
+    /**
+     * Creates an empty result with a column for each column of the result set, typed by the class the driver
+     * reports for it
+     *
+     * @param metaData of the result set
+     * @throws SQLException if the metadata cannot be read
+     */
+    public ColumnarResult(ResultSetMetaData metaData) throws SQLException {
+        int count = metaData.getColumnCount();
+        this.names = new String[count];
+        this.columns = new Column[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+            columns[i] = columnFor(metaData.getColumnClassName(i + 1));
+        }
+    }
+
+    /**
+     * Creates a result from rows already in memory, each column is typed by the values it holds
+     *
+     * @param columnNames of the result
+     * @param rows        of values
+     */
+    public ColumnarResult(List<String> columnNames, List<List<Object>> rows) {
+        int count = columnNames.size();
+        this.names = columnNames.toArray(new String[0]);
+        this.columns = new Column[count];
+        for (int i = 0; i < count; i++) {
+            String className = null;
+            for (List<Object> row : rows) {
+                Object value = row.get(i);
+                if (value != null) {
+                    if (className == null) {
+                        className = value.getClass().getName();
+                    } else if (!className.equals(value.getClass().getName())) {
+                        className = Object.class.getName();
+                    }
+                }
+            }
+            columns[i] = columnFor(className);
+        }
+        for (List<Object> row : rows) {
+            for (int i = 0; i < count; i++) {
+                columns[i].add(row.get(i), this.rows);
+            }
+            this.rows++;
+        }
+        trim();
+    }
+
+    /**
+     * Picks the storage for a column
+     *
+     * @param className the values of the column are
+     * @return an empty column
+     */
+    private static Column columnFor(String className) {
+        if (Integer.class.getName().equals(className)) {
+            return new IntColumn();
+        } else if (Long.class.getName().equals(className)) {
+            return new LongColumn();
+        } else if (Double.class.getName().equals(className)) {
+            return new DoubleColumn();
+        } else if (String.class.getName().equals(className)) {
+            return new StringColumn();
+        }
+        return new ObjectColumn();
+    }
+
+    /**
+     * Adds the current row of the result set
+     *
+     * @param rs positioned on the row
+     * @return the estimated size of the row in bytes
+     * @throws SQLException if a value cannot be read
+     */
+    public long addRow(ResultSet rs) throws SQLException {
+        long bytes = 0;
+        for (int i = 0; i < columns.length; i++) {
+            bytes += columns[i].read(rs, i + 1, rows);
+        }
+        rows++;
+        return bytes;
+    }
+
+    /**
+     * Releases the unused capacity once every row has been added, no rows can be added afterwards
+     */
+    public void trim() {
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Gets the name of a column
+     *
+     * @param column index, from 0
+     * @return the name
+     */
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Gets a value
+     *
+     * @param row    index, from 0
+     * @param column index, from 0
+     * @return the value, null if it was NULL
+     */
+    public Object getValue(int row, int column) {
+        return columns[column].get(row);
+    }
+}
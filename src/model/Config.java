@@ -0,0 +1,91 @@
+package model;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Reads the SQLmark settings, first from sqlmark.properties in the working directory and then from any
+ * -Dsqlmark.* system properties, which take precedence
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class Config {
+    private static final String FILENAME = "sqlmark.properties";
+    private static Properties properties;
+
+    /**
+     * Loads the properties file once
+     *
+     * @return the loaded properties, empty if there is no file
+     */
+    private static synchronized Properties load() {
+        if (properties == null) {
+            properties = new Properties();
+            try (InputStream in = new FileInputStream(FILENAME)) {
+                properties.load(in);
+            } catch (IOException e) {
+                // No settings file, use the defaults
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Gets a setting as a string
+     *
+     * @param key          of the setting
+     * @param defaultValue if the setting is not present
+     * @return the setting
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = load().getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets a setting as an int
+     *
+     * @param key          of the setting
+     * @param defaultValue if the setting is not present or not a number
+     * @return the setting
+     */
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a setting as a long
+     *
+     * @param key          of the setting
+     * @param defaultValue if the setting is not present or not a number
+     * @return the setting
+     */
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a setting as a boolean
+     *
+     * @param key          of the setting
+     * @param defaultValue if the setting is not present
+     * @return the setting
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,474 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of connections to the MariaDB server that every Database borrows from.
+ * Idle connections are kept per catalog (database), validated before being handed out, and connections that are
+ * borrowed for too long without being returned are reported as leaks.
+ * <p>
+ * Settings: sqlmark.db.url (default jdbc:mariadb://localhost:3306), sqlmark.db.user, sqlmark.db.password,
+ * sqlmark.db.options (extra JDBC URL parameters, default rewriteBatchedStatements=true), sqlmark.pool.size
+ * (default 20), sqlmark.pool.wait in seconds (default 30) and sqlmark.pool.leak in seconds (default 120)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT = 2;
+    private static ConnectionPool instance;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String options;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long leakMillis;
+
+    private final Map<String, Deque<Connection>> idle;
+    private final Map<Connection, Lease> leased;
+    private final Map<Connection, String> catalogs;
+    private int openCount;
+    private int idleCount;
+
+    private long borrowCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long leakCount;
+
+    /**
+     * Details of a borrowed connection, used for leak detection
+     */
+    private static class Lease {
+        private final long borrowedAt;
+        private final Throwable borrower;
+        private boolean reported;
+
+        private Lease() {
+            this.borrowedAt = System.currentTimeMillis();
+            this.borrower = new Throwable("Connection borrowed here");
+        }
+    }
+
+    /**
+     * Gets the pool for this process, creating it on first use
+     *
+     * @return the connection pool
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (instance == null) {
+            instance = new ConnectionPool(
+                    Config.getString("sqlmark.db.url", "jdbc:mariadb://localhost:3306"),
+                    Config.getString("sqlmark.db.user", "root"),
+                    Config.getString("sqlmark.db.password", "68(MNPq]+_9{fk>q"),
+                    Config.getString("sqlmark.db.options", "rewriteBatchedStatements=true"),
+                    Config.getInt("sqlmark.pool.size", 20),
+                    Config.getLong("sqlmark.pool.wait", 30) * 1000,
+                    Config.getLong("sqlmark.pool.leak", 120) * 1000);
+            Metrics metrics = Metrics.getInstance();
+            metrics.gauge("pool_active", instance::getActive);
+            metrics.gauge("pool_idle", instance::getIdle);
+            metrics.gauge("pool_max", instance::getMaxSize);
+            metrics.gauge("pool_borrows", instance::getBorrowCount);
+            metrics.gauge("pool_wait_max_millis", instance::getMaxWaitMillis);
+            metrics.gauge("pool_leaks", instance::getLeakCount);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the pool, connections are only opened when they are first needed
+     *
+     * @param url           of the server, without a database
+     * @param user          to connect as
+     * @param password      of the user
+     * @param options       extra URL parameters, may be blank
+     * @param maxSize       maximum number of open connections
+     * @param maxWaitMillis how long to wait for a connection when they are all in use
+     * @param leakMillis    how long a connection can be borrowed before it is reported as a leak
+     */
+    ConnectionPool(String url, String user, String password, String options, int maxSize,
+                           long maxWaitMillis, long leakMillis) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.options = options;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWaitMillis = maxWaitMillis;
+        this.leakMillis = leakMillis;
+        this.idle = new HashMap<>();
+        this.leased = new IdentityHashMap<>();
+        this.catalogs = new IdentityHashMap<>();
+
+        ScheduledExecutorService leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, leakMillis / 2);
+        leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeIdle));
+    }
+
+    /**
+     * Borrows a connection to the given database, opening one if there is room in the pool or waiting for one to be
+     * returned otherwise
+     *
+     * @param catalog the database to connect to, blank for none
+     * @return a validated connection
+     * @throws Error if no connection becomes available in time, or the database cannot be connected to
+     */
+    public Connection borrow(String catalog) throws Error {
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        Connection connection = null;
+        boolean create = false;
+        synchronized (this) {
+            while (connection == null && !create) {
+                connection = takeIdle(catalog);
+                if (connection == null) {
+                    if (openCount < maxSize || closeAnyIdle()) {
+                        // Reserve the slot while the connection is opened outside the lock
+                        openCount++;
+                        create = true;
+                    } else {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            throw new Error("No database connection became free in "
+                                    + (maxWaitMillis / 1000) + " seconds");
+                        }
+                        try {
+                            wait(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new Error("Interrupted waiting for a database connection", e);
+                        }
+                    }
+                }
+            }
+        }
+        if (create) {
+            connection = open(catalog);
+        } else {
+            connection = prepare(connection, catalog);
+        }
+        synchronized (this) {
+            long waited = System.nanoTime() - start;
+            borrowCount++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+            leased.put(connection, new Lease());
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. Any open transaction is rolled back, and the connection is pointed
+     * back at the database it was borrowed for. Broken connections are closed rather than kept, as are connections
+     * borrowed without a database that were switched to one, since they cannot be switched back to none.
+     *
+     * @param connection to return
+     */
+    public void release(Connection connection) {
+        String catalog;
+        synchronized (this) {
+            if (leased.remove(connection) == null) {
+                return;
+            }
+            catalog = catalogs.get(connection);
+        }
+        boolean reusable;
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            reusable = !connection.isClosed();
+            if (reusable) {
+                String current = connection.getCatalog();
+                if (catalog.equals("")) {
+                    reusable = current == null || current.equals("");
+                } else if (current == null || !current.equals(catalog)) {
+                    connection.setCatalog(catalog);
+                }
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        synchronized (this) {
+            if (reusable) {
+                idle.computeIfAbsent(catalog, key -> new ArrayDeque<>()).push(connection);
+                idleCount++;
+            } else {
+                catalogs.remove(connection);
+                openCount--;
+                quietClose(connection);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes a borrowed connection instead of returning it to the pool, for connections whose session may have been
+     * changed (session variables, sql_mode, temporary tables) so the next borrower would inherit it
+     *
+     * @param connection to close
+     */
+    public void discard(Connection connection) {
+        synchronized (this) {
+            if (leased.remove(connection) == null) {
+                return;
+            }
+            catalogs.remove(connection);
+            openCount--;
+            notifyAll();
+        }
+        quietClose(connection);
+    }
+
+    /**
+     * Gets the number of connections currently borrowed
+     *
+     * @return active connections
+     */
+    public synchronized int getActive() {
+        return leased.size();
+    }
+
+    /**
+     * Gets the number of open connections waiting to be borrowed
+     *
+     * @return idle connections
+     */
+    public synchronized int getIdle() {
+        return idleCount;
+    }
+
+    /**
+     * Gets the maximum number of open connections
+     *
+     * @return pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of times a connection has been borrowed
+     *
+     * @return borrow count
+     */
+    public synchronized long getBorrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * Gets the average time taken to borrow a connection, including validation and opening new connections
+     *
+     * @return average wait in milliseconds
+     */
+    public synchronized double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1e6 / borrowCount;
+    }
+
+    /**
+     * Gets the longest time taken to borrow a connection
+     *
+     * @return longest wait in milliseconds
+     */
+    public synchronized double getMaxWaitMillis() {
+        return maxWaitNanos / 1e6;
+    }
+
+    /**
+     * Gets the number of connections that have been reported as leaked
+     *
+     * @return leak count
+     */
+    public synchronized long getLeakCount() {
+        return leakCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("active=%d idle=%d max=%d borrows=%d avgWait=%.2fms maxWait=%.2fms leaks=%d",
+                leased.size(), idleCount, maxSize, borrowCount, getAverageWaitMillis(), getMaxWaitMillis(),
+                leakCount);
+    }
+
+    /**
+     * Takes an idle connection for the catalog, or one for another database that can be switched over.
+     * Connections without a database are only handed out when no database was asked for.
+     *
+     * @param catalog wanted
+     * @return an idle connection, or null if there are none that fit
+     */
+    private Connection takeIdle(String catalog) {
+        Deque<Connection> same = idle.get(catalog);
+        if (same != null && !same.isEmpty()) {
+            idleCount--;
+            return same.pop();
+        }
+        if (!catalog.equals("")) {
+            for (Map.Entry<String, Deque<Connection>> entry : idle.entrySet()) {
+                if (!entry.getKey().equals("") && !entry.getValue().isEmpty()) {
+                    idleCount--;
+                    return entry.getValue().pop();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes one idle connection to make room for a connection to a different database
+     *
+     * @return true if a connection was closed
+     */
+    private boolean closeAnyIdle() {
+        for (Deque<Connection> connections : idle.values()) {
+            if (!connections.isEmpty()) {
+                Connection connection = connections.removeLast();
+                idleCount--;
+                openCount--;
+                catalogs.remove(connection);
+                quietClose(connection);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validates an idle connection and points it at the catalog, replacing it with a new one if it is broken
+     *
+     * @param connection taken from the idle list
+     * @param catalog    wanted
+     * @return a usable connection
+     * @throws Error if a replacement cannot be opened, or the catalog does not exist
+     */
+    private Connection prepare(Connection connection, String catalog) throws Error {
+        try {
+            if (connection.isValid(VALIDATION_TIMEOUT)) {
+                if (!catalog.equals(catalogs.get(connection))) {
+                    connection.setCatalog(catalog);
+                    synchronized (this) {
+                        catalogs.put(connection, catalog);
+                    }
+                }
+                return connection;
+            }
+        } catch (SQLException e) {
+            // Either broken or the catalog does not exist, both are handled below
+            if (isValid(connection)) {
+                synchronized (this) {
+                    idle.computeIfAbsent(catalogs.get(connection), key -> new ArrayDeque<>()).push(connection);
+                    idleCount++;
+                    notifyAll();
+                }
+                throw new Error(e);
+            }
+        }
+        // Broken, so open a replacement in its slot
+        synchronized (this) {
+            catalogs.remove(connection);
+        }
+        quietClose(connection);
+        return open(catalog);
+    }
+
+    /**
+     * Opens a new connection in a slot that has already been reserved, freeing the slot if it fails
+     *
+     * @param catalog to connect to
+     * @return the new connection
+     * @throws Error if the connection fails
+     */
+    private Connection open(String catalog) throws Error {
+        String connectionUrl = catalog.equals("") ? url : url + "/" + catalog;
+        if (!options.equals("")) {
+            connectionUrl += "?" + options;
+        }
+        try {
+            Connection connection = DriverManager.getConnection(connectionUrl, user, password);
+            synchronized (this) {
+                catalogs.put(connection, catalog);
+            }
+            return connection;
+        } catch (SQLException e) {
+            synchronized (this) {
+                openCount--;
+                notifyAll();
+            }
+            throw new Error(e.getCause());
+        }
+    }
+
+    /**
+     * Reports connections that have been borrowed for longer than the leak threshold, with where they were borrowed
+     */
+    synchronized void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakMillis) {
+                lease.reported = true;
+                leakCount++;
+                System.err.println("Possible connection leak, borrowed " + (now - lease.borrowedAt) / 1000
+                        + " seconds ago and not returned:");
+                lease.borrower.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection, run when the application exits
+     */
+    private synchronized void closeIdle() {
+        for (Deque<Connection> connections : idle.values()) {
+            for (Connection connection : connections) {
+                quietClose(connection);
+            }
+            openCount -= connections.size();
+            connections.clear();
+        }
+        idleCount = 0;
+    }
+
+    /**
+     * Checks a connection still works
+     *
+     * @param connection to check
+     * @return true if it is valid
+     */
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a connection, ignoring errors
+     *
+     * @param connection to close
+     */
+    private static void quietClose(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already broken
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps each student's data download as a file in a cache directory, so a download is a file copy instead of a set of
+ * queries. Files are named by student number and DataVersion, so a pack is never served after the data is reloaded,
+ * and packs for older versions are deleted once a newer version is seen. Packs can be generated for every student in
+ * the background as soon as an assignment is set up, and are generated on demand otherwise.
+ * <p>
+ * Settings: sqlmark.pack.dir (default sqlmark-packs in the temporary directory), sqlmark.pack.gzip to compress the
+ * packs (default false) and sqlmark.pack.threads (default 2)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class DataPackCache {
+    private static DataPackCache instance;
+
+    /**
+     * Where the current data version and the contents of the packs come from
+     */
+    interface Source {
+        /**
+         * @return the current DataVersion
+         * @throws Error if it cannot be read
+         */
+        int currentVersion() throws Error;
+
+        /**
+         * Writes a student's data as SQL
+         *
+         * @param out        to write to
+         * @param studentNum the data is for
+         * @param version    of the data
+         * @throws Error if the data cannot be read or written
+         */
+        void write(Writer out, String studentNum, int version) throws Error;
+    }
+
+    /**
+     * Reads the version and data from the database
+     */
+    private static final Source DATABASE = new Source() {
+        @Override
+        public int currentVersion() throws Error {
+            return DataVersion.current();
+        }
+
+        @Override
+        public void write(Writer out, String studentNum, int version) throws Error {
+            Assignment.writeRandomData(out, studentNum, version);
+        }
+    };
+
+    private final Path directory;
+    private final boolean compressed;
+    private final ExecutorService executor;
+    private final Source source;
+    private final Map<Path, CompletableFuture<Path>> generating = new ConcurrentHashMap<>();
+    private volatile int purgedVersion = -1;
+
+    /**
+     * Gets the cache for this process, creating it on first use
+     *
+     * @return the cache
+     */
+    public static synchronized DataPackCache getInstance() {
+        if (instance == null) {
+            instance = new DataPackCache(
+                    Paths.get(Config.getString("sqlmark.pack.dir",
+                            Paths.get(System.getProperty("java.io.tmpdir"), "sqlmark-packs").toString())),
+                    Config.getBoolean("sqlmark.pack.gzip", false),
+                    Config.getInt("sqlmark.pack.threads", 2), DATABASE);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the cache
+     *
+     * @param directory  the packs are kept in
+     * @param compressed whether the packs are gzipped
+     * @param threads    generating packs in the background
+     * @param source     of the data version and the packs
+     */
+    DataPackCache(Path directory, boolean compressed, int threads, Source source) {
+        this.directory = directory;
+        this.compressed = compressed;
+        this.source = source;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "data-pack-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return whether the packs are gzipped, in which case downloads should be saved as .sql.gz
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Gets a student's pack for the current data, generating it if it is not cached
+     *
+     * @param studentNum the pack is for
+     * @return the pack file
+     * @throws Error if the pack cannot be generated
+     */
+    public Path get(String studentNum) throws Error {
+        int version = source.currentVersion();
+        purge(version);
+        Path pack = packFor(studentNum, version);
+        if (Files.exists(pack)) {
+            return pack;
+        }
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = generating.putIfAbsent(pack, mine);
+        if (running != null) {
+            // Another thread is already generating this pack
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+            }
+        }
+        try {
+            generate(studentNum, version, pack);
+            mine.complete(pack);
+            return pack;
+        } catch (Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            generating.remove(pack, mine);
+        }
+    }
+
+    /**
+     * Copies a student's pack to a file, straight from the cached file to the target without passing through the heap
+     *
+     * @param studentNum the pack is for
+     * @param target     file to write
+     * @throws Error if the pack cannot be generated or copied
+     */
+    public void copyTo(String studentNum, Path target) throws Error {
+        Path pack = get(studentNum);
+        try (FileChannel in = FileChannel.open(pack, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        } catch (IOException e) {
+            throw new Error("Couldn't copy the data to " + target, e);
+        }
+    }
+
+    /**
+     * Generates the packs of several students in the background, packs that are already cached are skipped
+     *
+     * @param studentNums to generate packs for
+     * @return a future that completes once every pack exists, failures are printed and skipped
+     */
+    public CompletableFuture<Void> pregenerate(List<String> studentNums) {
+        CompletableFuture<?>[] packs = new CompletableFuture<?>[studentNums.size()];
+        for (int i = 0; i < packs.length; i++) {
+            String studentNum = studentNums.get(i);
+            packs[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    get(studentNum);
+                } catch (Error e) {
+                    System.err.println("Couldn't prepare the data for " + studentNum + ": " + e.getMessage());
+                }
+            }, executor);
+        }
+        return CompletableFuture.allOf(packs);
+    }
+
+    /**
+     * Deletes the packs that were generated for any other data version
+     *
+     * @param version that is current
+     */
+    public void purge(int version) {
+        if (purgedVersion == version || !Files.isDirectory(directory)) {
+            purgedVersion = version;
+            return;
+        }
+        String suffix = "_v" + version + extension();
+        try (DirectoryStream<Path> packs = Files.newDirectoryStream(directory, "*.sql*")) {
+            for (Path pack : packs) {
+                if (!pack.getFileName().toString().endsWith(suffix)) {
+                    Files.deleteIfExists(pack);
+                }
+            }
+            purgedVersion = version;
+        } catch (IOException e) {
+            System.err.println("Couldn't delete old data packs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a pack to a temporary file and moves it into place, so a partly written pack is never served
+     *
+     * @param studentNum the pack is for
+     * @param version    of the data
+     * @param pack       file to create
+     * @throws Error if the data cannot be read or the file cannot be written
+     */
+    private void generate(String studentNum, int version, Path pack) throws Error {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "pack_", ".tmp");
+            try (OutputStream file = Files.newOutputStream(temp);
+                 OutputStream stream = compressed ? new GZIPOutputStream(file, 65536) : file;
+                 Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+                source.write(out, studentNum, version);
+            }
+            Files.move(temp, pack, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new Error("Couldn't write the data for " + studentNum, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Left behind in the cache directory, it is never served
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the file a pack is kept in
+     *
+     * @param studentNum the pack is for
+     * @param version    of the data
+     * @return the path
+     */
+    private Path packFor(String studentNum, int version) {
+        return directory.resolve(studentNum.replaceAll("[^A-Za-z0-9_-]", "_") + "_v" + version + extension());
+    }
+
+    /**
+     * @return the file extension of the packs
+     */
+    private String extension() {
+        return compressed ? ".sql.gz" : ".sql";
+    }
+}
@@ -0,0 +1,311 @@
+package model;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks a random sample of rows from a table without sorting the whole table. A table with a single integer primary
+ * key is sampled by seeking to random key values, which costs a few index lookups per sampled row. Any other table is
+ * read once through a streaming cursor with reservoir sampling, which keeps only the sample in memory. Given the same
+ * seed and the same data both give the same sample, so a student can be given a dataset that is reproducible.
+ * <p>
+ * Settings: sqlmark.sample.size rows per table (default 30)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class DataSampler {
+    /**
+     * Rounds of seeks made before a table with sparse keys is read instead
+     */
+    private static final int SEEK_ROUNDS = 4;
+
+    private final Database db;
+    private final int size;
+
+    /**
+     * A sample of rows
+     */
+    public static class Sample {
+        private final List<String> columns;
+        private final List<List<Object>> rows;
+
+        /**
+         * Creates a sample
+         *
+         * @param columns names
+         * @param rows    sampled
+         */
+        public Sample(List<String> columns, List<List<Object>> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        /**
+         * @return the column names
+         */
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        /**
+         * @return the sampled rows
+         */
+        public List<List<Object>> getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Creates a sampler with the configured sample size
+     *
+     * @param db connected to the database holding the tables
+     */
+    public DataSampler(Database db) {
+        this(db, Config.getInt("sqlmark.sample.size", 30));
+    }
+
+    /**
+     * Creates a sampler
+     *
+     * @param db   connected to the database holding the tables
+     * @param size rows per sample
+     */
+    public DataSampler(Database db, int size) {
+        this.db = db;
+        this.size = Math.max(0, size);
+    }
+
+    /**
+     * Works out the seed for a student's sample of a table, it changes when the data is reloaded
+     *
+     * @param studentNum  the sample is for
+     * @param dataVersion of the data
+     * @param table       being sampled
+     * @return the seed
+     */
+    public static long seedFor(String studentNum, int dataVersion, String table) {
+        long seed = 1125899906842597L;
+        for (String part : new String[]{studentNum, String.valueOf(dataVersion), table}) {
+            seed = 31 * seed + part.hashCode();
+        }
+        return seed;
+    }
+
+    /**
+     * Samples a table
+     *
+     * @param table to sample
+     * @param seed  for the random choices
+     * @return the sample, the whole table if it has fewer rows than the sample size
+     * @throws Error if the table cannot be read
+     */
+    public Sample sample(String table, long seed) throws Error {
+        try {
+            String key = integerKey(table);
+            if (key != null) {
+                Sample sample = keysetSample(table, key, new Random(seed));
+                if (sample != null) {
+                    return sample;
+                }
+            }
+            return reservoirSample(table, new Random(seed));
+        } catch (SQLException e) {
+            throw new Error("Couldn't sample " + table, e);
+        }
+    }
+
+    /**
+     * Finds the primary key of a table if it is a single column
+     *
+     * @param table to look at
+     * @return the column name, null if the key is missing or spans several columns
+     * @throws SQLException if the keys cannot be read
+     */
+    private String integerKey(String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement statement = db.getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SHOW KEYS FROM " + quote(table)
+                     + " WHERE Key_name = 'PRIMARY'")) {
+            while (rs.next()) {
+                columns.add(rs.getString("Column_name"));
+            }
+        }
+        return columns.size() == 1 ? columns.get(0) : null;
+    }
+
+    /**
+     * Samples by seeking to random key values between the smallest and largest key. Seeks that land in the same gap
+     * find the same row, so more seeks are made until the sample is full. If it is still short after a few rounds the
+     * keys are too sparse and the table is sampled by reading it instead.
+     * <p>
+     * The sample is not quite uniform: a seek finds the first row at or after a random key, so a row that follows a
+     * gap in the keys is picked as often as the gap and the row together are wide. Tables with few deleted rows are
+     * barely affected.
+     *
+     * @param table  to sample
+     * @param key    the integer primary key
+     * @param random for the key values
+     * @return the sample, null if the key is not an integer
+     * @throws SQLException if the table cannot be read
+     */
+    private Sample keysetSample(String table, String key, Random random) throws SQLException {
+        Object min;
+        Object max;
+        try (Statement statement = db.getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MIN(" + quote(key) + "), MAX(" + quote(key) + ") FROM "
+                     + quote(table))) {
+            rs.next();
+            min = rs.getObject(1);
+            max = rs.getObject(2);
+        }
+        if (min == null) {
+            return reservoirSample(table, random);
+        }
+        if (!isInteger(min) || !isInteger(max)) {
+            return null;
+        }
+        long low = ((Number) min).longValue();
+        long range = ((Number) max).longValue() - low + 1;
+        if (range > 0 && range <= size) {
+            // Every row fits in the sample
+            return reservoirSample(table, random);
+        }
+        Map<Object, List<Object>> rows = new LinkedHashMap<>();
+        List<String> columns = new ArrayList<>();
+        for (int round = 0; round < SEEK_ROUNDS && rows.size() < size; round++) {
+            // Seek to twice as many keys as are still needed, as some will find a row already in the sample
+            seek(table, key, low, range, (size - rows.size()) * 2, random, columns, rows);
+        }
+        if (rows.size() < size) {
+            return reservoirSample(table, random);
+        }
+        return new Sample(columns, new ArrayList<>(rows.values()));
+    }
+
+    /**
+     * Finds the first row at or after each of a number of random key values, in one query
+     *
+     * @param table   to sample
+     * @param key     the integer primary key
+     * @param low     smallest key
+     * @param range   of the keys, 0 or less if it does not fit in a long
+     * @param seeks   the number of key values to seek to
+     * @param random  for the key values
+     * @param columns filled with the column names if it is empty
+     * @param rows    the rows found are added to by key until it holds the sample size
+     * @throws SQLException if the table cannot be read
+     */
+    private void seek(String table, String key, long low, long range, int seeks, Random random, List<String> columns,
+                      Map<Object, List<Object>> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < seeks; i++) {
+            sql.append(i == 0 ? "" : " UNION ALL ").append("(SELECT * FROM ").append(quote(table))
+                    .append(" WHERE ").append(quote(key)).append(" >= ? ORDER BY ").append(quote(key))
+                    .append(" LIMIT 1)");
+        }
+        try (PreparedStatement statement = db.getConnection().prepareStatement(sql.toString())) {
+            for (int i = 1; i <= seeks; i++) {
+                long offset = range > 0 ? Math.floorMod(random.nextLong(), range) : random.nextLong();
+                statement.setLong(i, low + offset);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int keyColumn = 0;
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    if (columns.size() < meta.getColumnCount()) {
+                        columns.add(meta.getColumnName(i));
+                    }
+                    if (meta.getColumnName(i).equalsIgnoreCase(key)) {
+                        keyColumn = i;
+                    }
+                }
+                while (rs.next() && rows.size() < size) {
+                    rows.putIfAbsent(rs.getObject(keyColumn), readRow(rs, meta.getColumnCount()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Samples by reading every row once and keeping a uniform random sample of them (Algorithm R)
+     *
+     * @param table  to sample
+     * @param random for the choices
+     * @return the sample
+     * @throws SQLException if the table cannot be read
+     */
+    private Sample reservoirSample(String table, Random random) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>(size);
+        try (Statement statement = db.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery("SELECT * FROM " + quote(table))) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnName(i));
+                }
+                long seen = 0;
+                while (rs.next()) {
+                    if (seen < size) {
+                        rows.add(readRow(rs, columns.size()));
+                    } else {
+                        long slot = (long) (random.nextDouble() * (seen + 1));
+                        if (slot < size) {
+                            rows.set((int) slot, readRow(rs, columns.size()));
+                        }
+                    }
+                    seen++;
+                }
+            }
+        }
+        return new Sample(columns, rows);
+    }
+
+    /**
+     * Copies the current row
+     *
+     * @param rs      positioned on the row
+     * @param columns in the row
+     * @return the values
+     * @throws SQLException if a value cannot be read
+     */
+    private static List<Object> readRow(ResultSet rs, int columns) throws SQLException {
+        List<Object> row = new ArrayList<>(columns);
+        for (int i = 1; i <= columns; i++) {
+            row.add(rs.getObject(i));
+        }
+        return row;
+    }
+
+    /**
+     * Checks whether a key value is a whole number
+     *
+     * @param value of the key
+     * @return true for integer types
+     */
+    private static boolean isInteger(Object value) {
+        return value instanceof Number && !(value instanceof Double) && !(value instanceof Float)
+                && !(value instanceof BigDecimal);
+    }
+
+    /**
+     * Quotes an identifier with backticks
+     *
+     * @param identifier to quote
+     * @return the quoted identifier
+     */
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Tracks the version of the assignment data, stored in admin_data so every running client sees when the lecturer
+ * reloads or clears it. Anything derived from data_store (sandboxes, cached results) is keyed by this version.
+ * <p>
+ * The version is re-read at most every sqlmark.version.ttl milliseconds (default 2000).
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class DataVersion {
+    private static final String CREATE = "CREATE TABLE IF NOT EXISTS admin_data.data_version "
+            + "(id INT PRIMARY KEY, version INT NOT NULL);";
+    private static final long TTL = Config.getLong("sqlmark.version.ttl", 2000);
+
+    private static boolean tableCreated;
+    private static int cachedVersion;
+    private static long cachedAt;
+
+    /**
+     * Gets the current data version
+     *
+     * @return the version, 0 if the data has never been changed
+     * @throws Error if the version cannot be read
+     */
+    public static synchronized int current() throws Error {
+        if (tableCreated && System.currentTimeMillis() - cachedAt < TTL) {
+            return cachedVersion;
+        }
+        Database db = new Database("admin_data");
+        try {
+            ensureTable(db);
+            db.execute("SELECT version FROM data_version WHERE id = 1;");
+            ResultSet rs = db.getResultSet();
+            cachedVersion = rs.next() ? rs.getInt(1) : 0;
+            cachedAt = System.currentTimeMillis();
+            return cachedVersion;
+        } catch (SQLException e) {
+            throw new Error("Couldn't read the data version", e);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Moves to a new data version, called whenever data_store is changed. Changes to admin_data alone do not need a
+     * new version, as nothing derived from data_store depends on it.
+     * Cached results in this process are dropped straight away, sandboxes and other processes notice the change when
+     * they next read the version.
+     *
+     * @return the new version
+     * @throws Error if the version cannot be saved
+     */
+    public static synchronized int bump() throws Error {
+        Database db = new Database("admin_data");
+        try {
+            ensureTable(db);
+            db.execute("INSERT INTO data_version (id, version) VALUES (1, 1) "
+                    + "ON DUPLICATE KEY UPDATE version = version + 1;");
+            cachedAt = 0;
+        } finally {
+            db.close();
+        }
+        int version = current();
+        ExpectedResultCache.invalidate();
+        ResultCache.getInstance().invalidate();
+        DataPackCache.getInstance().purge(version);
+        return version;
+    }
+
+    /**
+     * Creates the version table the first time it is used
+     *
+     * @param db connected to admin_data
+     * @throws Error if the table cannot be created
+     */
+    private static void ensureTable(Database db) throws Error {
+        if (!tableCreated) {
+            db.execute(CREATE);
+            tableCreated = true;
+        }
+    }
+}
@@ -2,12 +2,12 @@ package model;
 
 import org.apache.commons.lang3.RandomStringUtils;
 
+import java.io.StringWriter;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Creates a connection to the database, and facilitates queries
@@ -20,17 +20,22 @@ public class Database {
     private CompileStatus lastStatus;
     private String tableName;
     private ResultSet lastResultSet;
+    private Statement lastStatement;
     private String currentSQL;
     private Connection dbConnection;
+    private boolean closed;
+    private boolean discard;
     private List<String> columnNames;
     private List<String> columnTypes;
     private int lastUpdateCount;
+    private ExecutionLimits limits;
 
     /**
-     * Enum declaring different compile statuses
+     * Enum declaring different compile statuses, LIMIT_EXCEEDED is used when a statement runs for too long or returns
+     * too much
      */
     public enum CompileStatus {
-        SUCCESS, FAILURE
+        SUCCESS, FAILURE, LIMIT_EXCEEDED
     }
 
     /**
@@ -43,26 +48,21 @@ public class Database {
     }
 
     /**
-     * Creates a connection to the specified database
+     * Borrows a connection to the specified database from the ConnectionPool, close() must be called to return it
      *
      * @param databaseName to connect to
      * @throws Error if database connection fails
      */
     public Database(String databaseName) throws Error {
-        String url = "";
-        if (databaseName.equals("")) {
-            url = "jdbc:mariadb://localhost:3306";
-        } else {
-            url = "jdbc:mariadb://localhost:3306/" + databaseName;
-        }
+        long start = System.nanoTime();
         try {
-            dbConnection = DriverManager.getConnection(url, "root", "68(MNPq]+_9{fk>q");
-        } catch (SQLException e) {
+            dbConnection = ConnectionPool.getInstance().borrow(databaseName);
+            Metrics.getInstance().recordSince("connect", start);
+        } catch (Error e) {
             lastStatus = CompileStatus.FAILURE;
             lastMessage = e.getMessage();
-            throw new Error(e.getCause());
+            throw e;
         }
-
     }
 
     //TODO Make this use types input by lecturer
@@ -124,12 +124,21 @@ public class Database {
         this.columnNames = columns;
         prepareInsert(row);
     }
+    /**
+     * Gets the underlying connection, for classes that need prepared statements or batches
+     *
+     * @return the connection
+     */
+    protected Connection getConnection() {
+        return dbConnection;
+    }
+
     /**
      * @returns connection whether the DB is connected
      */
     protected boolean isConnected(){
         try{
-            if(dbConnection.isClosed()){
+            if(closed || dbConnection.isClosed()){
                 return false;
             }else{
                 return true;
@@ -221,8 +230,16 @@ public class Database {
     public boolean execute(String sql) throws Error {
         currentSQL = sql;
         boolean type = false;
+        long start = System.nanoTime();
         try {
+            closeStatement();
             Statement statement = dbConnection.createStatement();
+            lastStatement = statement;
+            if (limits != null) {
+                statement.setQueryTimeout(limits.getTimeoutSeconds());
+                // One extra row so a result that is too big can be told apart from one that is exactly the limit
+                statement.setMaxRows(limits.getMaxRows() + 1);
+            }
             type = statement.execute(sql);
             if (type) {
                 lastResultSet = statement.getResultSet();
@@ -231,14 +248,70 @@ public class Database {
             }
             lastStatus = CompileStatus.SUCCESS;
             lastMessage = "Executed successfully";
+        } catch (SQLTimeoutException e) {
+            timedOut(e);
         } catch (SQLException e) {
+            if ("70100".equals(e.getSQLState())) {
+                timedOut(e);
+            }
             lastStatus = CompileStatus.FAILURE;
             lastMessage =  "Execution failed!";
             throw new Error(e);
+        } finally {
+            Metrics.getInstance().recordSince("execute", start);
         }
         return type;
     }
 
+    /**
+     * Starts a transaction, statements run until rollback() is called can then be undone
+     *
+     * @throws Error if autocommit cannot be turned off
+     */
+    public void beginTransaction() throws Error {
+        try {
+            dbConnection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new Error("Error starting transaction!", e);
+        }
+    }
+
+    /**
+     * Undoes everything since beginTransaction() and turns autocommit back on
+     *
+     * @throws Error if the rollback fails
+     */
+    public void rollback() throws Error {
+        try {
+            dbConnection.rollback();
+            dbConnection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new Error("Error rolling back transaction!", e);
+        }
+    }
+
+    /**
+     * Applies execution limits to the statements this Database runs from now on, used for student SQL
+     *
+     * @param limits to apply, null for none
+     */
+    public void setLimits(ExecutionLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Records a statement that was stopped for running too long
+     *
+     * @param e the timeout
+     * @throws Error always
+     */
+    private void timedOut(SQLException e) throws Error {
+        lastStatus = CompileStatus.LIMIT_EXCEEDED;
+        lastMessage = "Your query took longer than " + (limits == null ? "the time limit" : limits.getTimeoutSeconds()
+                + " seconds") + " and was stopped";
+        throw new Error(lastMessage, e);
+    }
+
     /**
      * Returns the last message back from the database
      *
@@ -365,82 +438,30 @@ public class Database {
         return sqlFile.toString();
     }*/
 
+    /**
+     * Writes the CREATE TABLE of the table the last query selected from, followed by the rows it returned as INSERTs
+     *
+     * @return the SQL, null if there is no result set
+     * @throws Error if the result cannot be read
+     * @see SQLExporter
+     */
     public String exportToSQL() throws Error {
-        StringBuilder sqlFile = new StringBuilder();
         if (getResultSet() == null) {
             return null;
         }
+        StringWriter sqlFile = new StringWriter();
+        SQLExporter exporter = new SQLExporter(sqlFile);
         try {
-            ResultSetMetaData meta = getResultSet().getMetaData();
-            String table = meta.getTableName(1);
-            while (getResultSet().next()) {
-                List<String> columns = new ArrayList<>();
-                for (int i = 1; i <= meta.getColumnCount(); i++) {
-                    columns.add(meta.getColumnName(i));
-                }
-
-                while (getResultSet().next()) {
-                    String sql = "INSERT INTO " + table + " ("
-                            + String.join(", ", columns)
-                            + ") VALUES ("
-                            + columns.stream().map(c -> "?").collect(Collectors.joining(", "))
-                            + ");";
-                    List<Object> parameters = new ArrayList<>();
-                    for (int i = 1; i <= meta.getColumnCount(); i++) {
-                        parameters.add(getResultSet().getObject(i));
-                    }
-                    sqlFile.append(generateActualSql(sql, parameters)).append("\n");
-                }
-
-                sqlFile.append("\n");
-            }
-            closeRS();
-            sqlFile.insert(0, "\n");
-
-            execute("SHOW CREATE TABLE " + table + ";");
-            while (getResultSet().next()) {
-                sqlFile.insert(0, getResultSet().getString(2) + ";");
-            }
+            String table = getResultSet().getMetaData().getTableName(1);
+            exporter.writeCreate(this, table);
+            exporter.writeRows(table, getResultSet());
             closeRS();
-
-            sqlFile.append("\n\n");
         } catch (SQLException ex) {
             throw new Error("Error exporting", ex);
         }
         return sqlFile.toString();
     }
 
-    private String generateActualSql(String sqlQuery, List<Object> parameters) {
-        String[] parts = sqlQuery.split("\\?");
-        StringBuilder sb = new StringBuilder();
-
-        for (int i = 0; i < parts.length; i++) {
-            String part = parts[i];
-            sb.append(part);
-            if (i < parameters.size()) {
-                sb.append(formatParameter(parameters.get(i)));
-            }
-        }
-
-        return sb.toString();
-    }
-
-    private String formatParameter(Object parameter) {
-        if (parameter == null) {
-            return "NULL";
-        } else {
-            if (parameter instanceof String) {
-                return "'" + ((String) parameter).replace("'", "\\'") + "'";
-            } else if (parameter instanceof Timestamp || parameter instanceof Date) {
-                return "'" + parameter.toString() + "'";
-            } else if (parameter instanceof Boolean) {
-                return (Boolean) parameter ? "1" : "0";
-            } else {
-                return parameter.toString();
-            }
-        }
-    }
-
 
     /**
      * Updates the current list of tables
@@ -459,6 +480,7 @@ public class Database {
             row.add(tableName);
             tableDB.prepareInsert(row);
             tableDB.execute();
+            tableDB.close();
         }
     }
 
@@ -480,17 +502,49 @@ public class Database {
     }
 
     /**
-     * Closes connection to the database
+     * Closes the connection when this Database is closed rather than returning it to the pool, used when SQL that may
+     * change the session has been run on it
+     */
+    public void discardConnection() {
+        discard = true;
+    }
+
+    /**
+     * Returns the connection to the pool, or closes it if discardConnection() was called. The Database cannot be used
+     * afterwards.
      *
-     * @throws Error if can't close connection
+     * @throws Error if the result set can't be closed
      */
     public void close() throws Error {
+        if (closed) {
+            return;
+        }
+        closed = true;
         try {
-            dbConnection.close();
+            closeStatement();
         } catch (SQLException e) {
             lastStatus = CompileStatus.FAILURE;
             lastMessage = e.getMessage();
             throw new Error("Not able to close connection to the DB", e.getCause());
+        } finally {
+            if (discard) {
+                ConnectionPool.getInstance().discard(dbConnection);
+            } else {
+                ConnectionPool.getInstance().release(dbConnection);
+            }
+        }
+    }
+
+    /**
+     * Closes the last statement and its result set, pooled connections outlive the Database so nothing can be left
+     * open on them
+     *
+     * @throws SQLException if the statement can't be closed
+     */
+    private void closeStatement() throws SQLException {
+        if (lastStatement != null) {
+            lastStatement.close();
+            lastStatement = null;
         }
     }
 
@@ -585,18 +639,37 @@ public class Database {
     }
 
 
+    /**
+     * Creates a randomly named copy of data_store
+     *
+     * @return the name of the new database
+     * @throws Error if the copy fails
+     */
     public String duplicateDB() throws Error {
-        String randomDB = null;
+        String randomDB = "data_store_" + RandomStringUtils.randomAlphabetic(10);
+        cloneDB(randomDB);
+        return randomDB;
+    }
+
+    /**
+     * Makes the given database an exact copy of data_store, dropping whatever it held before
+     *
+     * @param name of the database to (re)create
+     * @throws Error if the copy fails
+     */
+    public void cloneDB(String name) throws Error {
+        long start = System.nanoTime();
         try {
-            randomDB = "data_store_" + RandomStringUtils.randomAlphabetic(10);
             Statement statement = dbConnection.createStatement();
-            statement.executeUpdate("CREATE DATABASE " + randomDB);
+            statement.executeUpdate("DROP DATABASE IF EXISTS " + name);
+            statement.executeUpdate("CREATE DATABASE " + name);
+            statement.close();
 
             dbConnection.setCatalog("data_store");
             DatabaseMetaData md = dbConnection.getMetaData();
             ResultSet rs = md.getTables(null, null, "%", null);
 
-            dbConnection.setCatalog(randomDB);
+            dbConnection.setCatalog(name);
             Statement statement2;
             while (rs.next()) {
                 String table = rs.getString(3);
@@ -604,14 +677,14 @@ public class Database {
                 statement2 = dbConnection.createStatement();
                 statement2.executeUpdate("CREATE TABLE " + table + " LIKE data_store." + table);
                 statement2.executeUpdate("INSERT INTO " + table + " SELECT * FROM data_store." + table);
+                statement2.close();
             }
 
             rs.close();
-
+            Metrics.getInstance().recordSince("clone", start);
         } catch (SQLException e) {
             throw new Error("Error creating database!", e);
         }
-        return randomDB;
     }
 
     public void changeDB(String name) throws Error {
@@ -624,9 +697,12 @@ public class Database {
 
     public void deleteDB(String name) throws Error {
         Statement statement = null;
+        long start = System.nanoTime();
         try {
             statement = dbConnection.createStatement();
-            statement.executeUpdate("DROP DATABASE " + name);
+            statement.executeUpdate("DROP DATABASE IF EXISTS " + name);
+            statement.close();
+            Metrics.getInstance().recordSince("drop", start);
         } catch (SQLException e) {
             throw new Error("Error deleting database!", e);
         }
@@ -1,10 +1,8 @@
 package model;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,19 +12,104 @@ import java.util.List;
  * @version 15/09/2018
  */
 public class Dataset {
-    private List<List<Object>> dataset;
+    private ColumnarResult dataset;
+    private List<TableChecksum> tableStates;
     private List<Dataset> datasets;
     private Integer rowsUpdated;
     private String compileMessage;
     private Database.CompileStatus compileStatus;
+    private boolean ordered;
+    private long estimatedBytes;
+    private boolean lockConflict;
+    private boolean executed;
+    private ExecutionLimits limits;
 
     /**
-     * Compares two datasets to one another
-     * @param dataset to be compared to
+     * Times a statement is run when it keeps failing on a lock wait timeout or deadlock
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * MariaDB error codes for a lock wait timeout and a deadlock, which are not the fault of the SQL being run
+     */
+    private static final int LOCK_WAIT_TIMEOUT = 1205;
+    private static final int DEADLOCK = 1213;
+
+    /**
+     * Compares this dataset to the expected one. Rows must be in the same order only if the expected SQL has an
+     * ORDER BY.
+     * @param dataset the expected result to be compared to
      * @return true or false
+     * @see ResultComparison
      */
     public boolean equals(Dataset dataset) {
-        return Arrays.deepEquals(dataset.convertList(), convertList());
+        return ResultComparison.compare(dataset, this).isEqual();
+    }
+
+    /**
+     * Returns whether the SQL sorted its result with a top level ORDER BY
+     * @return true if the row order matters
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Returns whether there is a result set, statements that are not queries or that failed have none
+     * @return true if there are rows and columns to read
+     */
+    public boolean hasResult() {
+        return dataset != null;
+    }
+
+    /**
+     * Returns the state of the tables a DML statement changed, taken before it was rolled back
+     * @return a checksum per table, null if the statement was not DML or failed
+     */
+    public List<TableChecksum> getTableStates() {
+        return tableStates;
+    }
+
+    /**
+     * Returns the number of rows, not counting the column names
+     * @return row count, 0 if there is no result
+     */
+    public int getRowCount() {
+        return dataset == null ? 0 : dataset.getRowCount();
+    }
+
+    /**
+     * Returns the number of columns
+     * @return column count, 0 if there is no result
+     */
+    public int getColumnCount() {
+        return dataset == null ? 0 : dataset.getColumnCount();
+    }
+
+    /**
+     * Returns the name of a column
+     * @param column index, from 0
+     * @return the column name
+     */
+    public String getColumnName(int column) {
+        return dataset.getColumnName(column);
+    }
+
+    /**
+     * Returns a single value
+     * @param row index, from 0, not counting the column names
+     * @param column index, from 0
+     * @return the value, may be null
+     */
+    public Object getValue(int row, int column) {
+        return dataset.getValue(row, column);
+    }
+
+    /**
+     * Returns roughly how much memory the result takes up
+     * @return estimated size in bytes, 0 if there is no result
+     */
+    long getEstimatedBytes() {
+        return dataset == null ? 0 : estimatedBytes;
     }
 
     /**
@@ -46,59 +129,250 @@ public class Dataset {
     }
 
     /**
-     * Creates a dataSet with the given SQL statement
+     * Creates a dataSet with the given SQL statement.
+     * Read-only queries are run on the shared sandbox inside a transaction that is rolled back. DML and locking queries
+     * are run inside a rolled-back transaction on a sandbox of their own leased from the SandboxPool, so they never
+     * wait on another grader's row locks, and anything else is run on a leased sandbox without a transaction.
+     * A statement that fails on a lock wait timeout or deadlock is run again rather than reported as a failure.
+     * No execution limits are applied, this is used for the lecturer's SQL.
      *
      * @param sql to be executed
+     * @throws UnavailableException if no sandbox or connection could be had to run it on
      */
     public Dataset(String sql)  {
+        this(new SQLStatement(sql), null);
+    }
+
+    /**
+     * Creates a dataSet from a statement that has already been classified
+     *
+     * @param statement to be executed
+     * @param limits    on how long it can run and how big its result can be, null for none
+     * @throws UnavailableException if no sandbox or connection could be had to run it on
+     */
+    Dataset(SQLStatement statement, ExecutionLimits limits) {
+        this.limits = limits;
+        this.ordered = statement.hasOrderBy();
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            lockConflict = false;
+            executed = false;
+            if (statement.isReadOnly()) {
+                runShared(statement);
+            } else {
+                runInSandbox(statement, statement.isTransactional());
+            }
+            if (!lockConflict) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Creates a dataSet from rows that are already in memory, used for testing and benchmarks
+     *
+     * @param columnNames of the result
+     * @param rows of values, one list per row
+     * @param ordered whether the row order matters when compared
+     */
+    Dataset(List<String> columnNames, List<List<Object>> rows, boolean ordered) {
+        this.dataset = new ColumnarResult(columnNames, rows);
+        for (List<Object> row : rows) {
+            for (Object value : row) {
+                estimatedBytes += value instanceof String ? 2L * ((String) value).length() : 8;
+            }
+        }
+        this.ordered = ordered;
+        this.compileStatus = Database.CompileStatus.SUCCESS;
+        this.compileMessage = "Executed successfully";
+    }
+
+    /**
+     * Creates a dataSet for DML from table checksums that are already known, used for testing
+     *
+     * @param tableStates a checksum per changed table
+     */
+    Dataset(List<TableChecksum> tableStates) {
+        this.tableStates = tableStates;
+        this.compileStatus = Database.CompileStatus.SUCCESS;
+        this.compileMessage = "Executed successfully";
+    }
+
+    /**
+     * Runs a read-only query on the shared sandbox and rolls it back afterwards
+     *
+     * @param statement to be executed
+     */
+    private void runShared(SQLStatement statement) {
+        SandboxPool pool = SandboxPool.getInstance();
+        String shared;
+        try {
+            shared = pool.acquireShared();
+        } catch (Error e) {
+            fail(null, e);
+            return;
+        }
+        Database db = null;
+        try {
+            db = new Database(shared);
+            db.beginTransaction();
+            try {
+                run(db, statement);
+            } finally {
+                db.rollback();
+            }
+        } catch (Error e) {
+            fail(db, e);
+        } finally {
+            close(db);
+            pool.releaseShared();
+        }
+    }
+
+    /**
+     * Runs the SQL on a sandbox leased from the pool. The sandbox is only re-cloned once it is released if the
+     * statement ran outside a transaction or the rollback failed. A rollback does not reset AUTO_INCREMENT counters,
+     * but the tables loaded from CSV do not have any.
+     *
+     * @param statement   to be executed
+     * @param transaction whether to run it inside a transaction that is rolled back
+     */
+    private void runInSandbox(SQLStatement statement, boolean transaction) {
+        SandboxPool pool = SandboxPool.getInstance();
+        String sandbox = null;
         Database db = null;
-        try{
-            db = new Database("");
-            String newDB = db.duplicateDB();
-            db.changeDB(newDB);
-
-            boolean type = db.execute(sql);
-            this.compileMessage = db.getLastMessage();
-            this.compileStatus = db.getLastStatus();
-            this.dataset = null;
-            if (this.compileStatus == Database.CompileStatus.SUCCESS) {
+        boolean changed = true;
+        try {
+            sandbox = pool.lease();
+            db = new Database(sandbox);
+            if (transaction) {
+                db.beginTransaction();
                 try {
-                    if (type) {
-                        this.dataset = convertResultSet(db.getResultSet());
-                        db.closeRS();
-                    } else {
-                        // TODO: INSERT, UPDATE, OR DELETE
+                    run(db, statement);
+                } finally {
+                    db.rollback();
+                    changed = false;
+                }
+            } else {
+                run(db, statement);
+            }
+        } catch (Error e) {
+            fail(db, e);
+        } finally {
+            close(db);
+            if (sandbox != null) {
+                pool.release(sandbox, changed);
+            }
+        }
+    }
+
+    /**
+     * Executes the SQL and logs it if it was slow
+     *
+     * @param db  to execute on
+     * @param statement to be executed
+     * @throws Error if the SQL fails
+     */
+    private void run(Database db, SQLStatement statement) throws Error {
+        long start = System.nanoTime();
+        try {
+            execute(db, statement);
+        } finally {
+            Metrics.getInstance().checkSlow(statement.getSql(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executes the SQL and stores its result, or for DML the state of the tables it changed
+     *
+     * @param db  to execute on
+     * @param statement to be executed
+     * @throws Error if the SQL fails
+     */
+    private void execute(Database db, SQLStatement statement) throws Error {
+        db.setLimits(limits);
+        if (!statement.isCacheable()) {
+            // Only a cacheable query is known to leave nothing behind in the session, anything else could have set a
+            // variable, sql_mode or sql_select_limit or made a temporary table that the next borrower would inherit
+            db.discardConnection();
+        }
+        executed = true;
+        boolean type = db.execute(statement.getSql());
+        this.compileMessage = db.getLastMessage();
+        this.compileStatus = db.getLastStatus();
+        this.dataset = null;
+        if (this.compileStatus == Database.CompileStatus.SUCCESS) {
+            long fetch = System.nanoTime();
+            try {
+                if (type) {
+                    this.dataset = convertResultSet(db.getResultSet());
+                    db.closeRS();
+                } else if (statement.getType() == SQLStatement.Type.DML) {
+                    List<TableChecksum> states = new ArrayList<>();
+                    for (String table : statement.getTargetTables()) {
+                        states.add(TableChecksum.capture(db, table, limits));
                     }
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                    this.compileStatus = Database.CompileStatus.FAILURE;
+                    this.tableStates = states;
                 }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                this.compileStatus = Database.CompileStatus.FAILURE;
+                this.lockConflict = isLockConflict(e);
             }
+            Metrics.getInstance().recordSince("fetch", fetch);
+        }
+    }
 
-            db.deleteDB(newDB);
-            db.close();
-        }catch(Error e){
-            this.compileMessage = db.getLastMessage();
-            this.compileStatus = db.getLastStatus();
-            this.dataset = null;
+    /**
+     * Records a failed execution. An error before the SQL was sent to the database is not the SQL's fault, so it is
+     * thrown on rather than recorded as a failure.
+     *
+     * @param db    the SQL was run on, null if it never got that far
+     * @param error that was thrown
+     * @throws UnavailableException if the SQL was never run
+     */
+    private void fail(Database db, Error error) {
+        if (!executed) {
+            throw new UnavailableException(error);
         }
+        this.compileMessage = db == null || db.getLastMessage() == null ? error.getMessage() : db.getLastMessage();
+        this.compileStatus = db != null && db.getLastStatus() == Database.CompileStatus.LIMIT_EXCEEDED
+                ? Database.CompileStatus.LIMIT_EXCEEDED : Database.CompileStatus.FAILURE;
+        this.dataset = null;
+        this.tableStates = null;
+        this.lockConflict = isLockConflict(error);
     }
 
     /**
-     * Creates a list of the dataset
+     * Checks whether a failure was caused by waiting on another transaction's locks
      *
-     * @return an Object[][] array, null if there are no values in the dataset
-     */
-    private Object[][] convertList() {
-        if (!(dataset == null)) {
-            Object[][] array = new Object[dataset.size()][];
-            for (int i = 0; i < dataset.size(); i++) {
-                List<Object> row = dataset.get(i);
-                array[i] = row.toArray(new Object[0]);
+     * @param error that was thrown
+     * @return true for a lock wait timeout or a deadlock
+     */
+    private static boolean isLockConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                int code = ((SQLException) cause).getErrorCode();
+                if (code == LOCK_WAIT_TIMEOUT || code == DEADLOCK) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the connection, ignoring errors as the result has already been recorded
+     *
+     * @param db to close, may be null
+     */
+    private void close(Database db) {
+        if (db != null) {
+            try {
+                db.close();
+            } catch (Error e) {
+                e.printStackTrace();
             }
-            return array;
         }
-        return null;
     }
 
     /**
@@ -110,9 +384,14 @@ public class Dataset {
     public String toString() {
         StringBuilder returnString = new StringBuilder();
         if (dataset != null) {
-            for (List<Object> row : dataset) {
-                for (Object cell : row) {
-                    returnString.append(String.format("%-25s|", cell.toString()));
+            for (int column = 0; column < dataset.getColumnCount(); column++) {
+                returnString.append(String.format("%-25s|", dataset.getColumnName(column)));
+            }
+            returnString.setLength(Math.max(returnString.length() - 1, 0));
+            returnString.append("\n");
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                for (int column = 0; column < dataset.getColumnCount(); column++) {
+                    returnString.append(String.format("%-25s|", String.valueOf(dataset.getValue(row, column))));
                 }
                 returnString.setLength(Math.max(returnString.length() - 1, 0));
                 returnString.append("\n");
@@ -122,31 +401,41 @@ public class Dataset {
     }
 
     /**
-     * Converts a result set to a list
+     * Converts a result set to columns. If the result is bigger than the limits allow it is discarded and the compile
+     * status is set to LIMIT_EXCEEDED.
      *
      * @param rs result set
-     * @return a list of the result set
+     * @return the result set by column, null if it was too big
      * @throws SQLException
      */
-    private List<List<Object>> convertResultSet(ResultSet rs) throws SQLException {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columns = metaData.getColumnCount();
-        List<List<Object>> dataset = new ArrayList<>();
-
-        List<Object> row = new ArrayList<>(columns);
-        for (int i = 1; i <= columns; i++) {
-            row.add(metaData.getColumnName(i));
-        }
-        dataset.add(row);
+    private ColumnarResult convertResultSet(ResultSet rs) throws SQLException {
+        ColumnarResult dataset = new ColumnarResult(rs.getMetaData());
 
+        long bytes = 0;
         while (rs.next()) {
-            row = new ArrayList<>(columns);
-            for (int i = 1; i <= columns; i++) {
-                row.add(rs.getObject(i));
+            if (limits != null && dataset.getRowCount() >= limits.getMaxRows()) {
+                limitExceeded("Your query returned more than " + limits.getMaxRows() + " rows and was stopped");
+                return null;
+            }
+            bytes += dataset.addRow(rs);
+            if (limits != null && bytes > limits.getMaxBytes()) {
+                limitExceeded("Your query returned more than " + limits.getMaxBytes() / 1024 + "KB and was stopped");
+                return null;
             }
-            dataset.add(row);
         }
+        dataset.trim();
+        this.estimatedBytes = bytes;
 
         return dataset;
     }
+
+    /**
+     * Records that the result was too big to keep
+     *
+     * @param message explaining which limit was hit
+     */
+    private void limitExceeded(String message) {
+        this.compileStatus = Database.CompileStatus.LIMIT_EXCEEDED;
+        this.compileMessage = message;
+    }
 }
@@ -0,0 +1,85 @@
+package model;
+
+/**
+ * Limits on how long student SQL can run and how much it can return, so one runaway query cannot hold a sandbox or a
+ * database core for everyone else. They are applied by ResultCache to the students' answers, the lecturer's SQL is not
+ * limited.
+ * <p>
+ * Settings: sqlmark.limits.timeout in seconds (default 10), sqlmark.limits.rows (default 10000) and
+ * sqlmark.limits.bytes, an estimate of the result size in memory (default 8388608)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ExecutionLimits {
+    private static ExecutionLimits defaults;
+
+    private final int timeoutSeconds;
+    private final int maxRows;
+    private final long maxBytes;
+
+    /**
+     * Gets the configured limits
+     *
+     * @return the limits
+     */
+    public static synchronized ExecutionLimits getDefault() {
+        if (defaults == null) {
+            defaults = new ExecutionLimits(Config.getInt("sqlmark.limits.timeout", 10),
+                    Config.getInt("sqlmark.limits.rows", 10000),
+                    Config.getLong("sqlmark.limits.bytes", 8L * 1024 * 1024));
+        }
+        return defaults;
+    }
+
+    /**
+     * Creates a set of limits
+     *
+     * @param timeoutSeconds how long a statement can run, 0 for no limit
+     * @param maxRows        how many rows a query can return
+     * @param maxBytes       roughly how much memory a query result can take
+     */
+    public ExecutionLimits(int timeoutSeconds, int maxRows, long maxBytes) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return how long a statement can run, in seconds
+     */
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * @return how many rows a query can return
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * @return roughly how many bytes a query result can take in memory
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Estimates how much memory a value takes
+     *
+     * @param value from a result set
+     * @return estimated size in bytes
+     */
+    public static long sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return 8;
+    }
+}
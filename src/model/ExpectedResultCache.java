@@ -0,0 +1,77 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of the Datasets produced by the lecturer's answers, so building an Assignment does not run every
+ * answer again. Entries are keyed by the answer SQL and the DataVersion they were computed against, and are dropped
+ * once the version moves on.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ExpectedResultCache {
+    private static final Map<ResultKey, CompletableFuture<Dataset>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the result of an answer, running it only if it has not been run against the current data.
+     * Threads asking for the same answer at the same time share one execution. Failed executions are not cached.
+     *
+     * @param sql the answer
+     * @return the result of the answer
+     * @throws Error if the data version cannot be read, or there was no sandbox or connection to run the answer on
+     */
+    public static Dataset get(String sql) throws Error {
+        int version = DataVersion.current();
+        cache.keySet().removeIf(key -> key.getVersion() != version);
+        ResultKey key = new ResultKey(sql, version);
+
+        CompletableFuture<Dataset> created = new CompletableFuture<>();
+        CompletableFuture<Dataset> existing = cache.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UnavailableException) {
+                    throw new Error(e.getCause().getMessage(), e.getCause());
+                }
+                throw e;
+            }
+        }
+        Dataset dataset;
+        try {
+            dataset = new Dataset(sql);
+        } catch (RuntimeException e) {
+            cache.remove(key, created);
+            created.completeExceptionally(e);
+            if (e instanceof UnavailableException) {
+                throw new Error(e.getMessage(), e);
+            }
+            throw e;
+        }
+        if (dataset.getCompileStatus() != Database.CompileStatus.SUCCESS) {
+            cache.remove(key, created);
+        }
+        created.complete(dataset);
+        return dataset;
+    }
+
+    /**
+     * Empties the cache
+     */
+    public static void invalidate() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of cached results
+     *
+     * @return cache size
+     */
+    public static int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,108 @@
+package model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Grades answers on a bounded pool of worker threads, so a student can carry on while their answers are run.
+ * Each job runs its SQL through Dataset, which leases its own sandbox or transaction.
+ * <p>
+ * Settings: sqlmark.grading.threads (default: number of processors)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class GradingEngine {
+    private static GradingEngine instance;
+
+    private final ThreadPoolExecutor executor;
+    private final BiFunction<String, Question, Answer> grader;
+
+    /**
+     * Gets the engine for this process, creating it on first use
+     *
+     * @return the grading engine
+     */
+    public static synchronized GradingEngine getInstance() {
+        if (instance == null) {
+            instance = new GradingEngine(Config.getInt("sqlmark.grading.threads",
+                    Runtime.getRuntime().availableProcessors()));
+            Metrics.getInstance().gauge("grading_queued", instance::getQueued);
+            Metrics.getInstance().gauge("grading_active", instance::getActive);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the engine
+     *
+     * @param threads number of answers graded at the same time
+     */
+    private GradingEngine(int threads) {
+        this(threads, Answer::new);
+    }
+
+    /**
+     * Creates an engine that grades with the given function, used for testing
+     *
+     * @param threads number of answers graded at the same time
+     * @param grader  grades the SQL for a question
+     */
+    GradingEngine(int threads, BiFunction<String, Question, Answer> grader) {
+        this.grader = grader;
+        AtomicInteger count = new AtomicInteger();
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "grader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues an answer to be graded
+     *
+     * @param studentNum of the student who answered
+     * @param question   being answered
+     * @param sql        the student entered
+     * @return the graded answer once it has been run
+     */
+    public CompletableFuture<Answer> submit(String studentNum, Question question, String sql) {
+        return CompletableFuture.supplyAsync(() -> {
+            Metrics.setStudent(studentNum);
+            try {
+                return grader.apply(sql, question);
+            } catch (RuntimeException e) {
+                throw new CompletionException(new Error("Couldn't grade question " + question.getQuestionNum()
+                        + " for " + studentNum, e));
+            } finally {
+                Metrics.setStudent(null);
+            }
+        }, executor);
+    }
+
+    /**
+     * Gets the number of answers waiting for a free worker
+     *
+     * @return queued answers
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of answers being graded right now
+     *
+     * @return active answers
+     */
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+}
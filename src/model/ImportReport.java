@@ -0,0 +1,168 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of importing several data files at once, with the rows and throughput of each file
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ImportReport {
+    private final List<FileResult> results;
+    private double wallSeconds;
+
+    /**
+     * The outcome of importing one file
+     */
+    public static class FileResult {
+        private final String filename;
+        private final long rows;
+        private final double seconds;
+        private final Error error;
+
+        /**
+         * Creates a result for a file that was loaded
+         *
+         * @param filename that was loaded
+         * @param rows     loaded
+         * @param seconds  the load took
+         */
+        public FileResult(String filename, long rows, double seconds) {
+            this(filename, rows, seconds, null);
+        }
+
+        /**
+         * Creates a result
+         *
+         * @param filename that was loaded
+         * @param rows     loaded
+         * @param seconds  the load took
+         * @param error    that stopped the load, null if it succeeded
+         */
+        public FileResult(String filename, long rows, double seconds, Error error) {
+            this.filename = filename;
+            this.rows = rows;
+            this.seconds = seconds;
+            this.error = error;
+        }
+
+        /**
+         * @return the file name
+         */
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * @return the rows loaded
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the seconds the load took
+         */
+        public double getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * @return rows loaded per second
+         */
+        public double getRowsPerSecond() {
+            return seconds == 0 ? 0 : rows / seconds;
+        }
+
+        /**
+         * @return the error that stopped the load, null if it succeeded
+         */
+        public Error getError() {
+            return error;
+        }
+
+        /**
+         * @return whether the file loaded
+         */
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Creates an empty report
+     */
+    public ImportReport() {
+        this.results = new ArrayList<>();
+    }
+
+    /**
+     * Adds the result of one file
+     *
+     * @param result to add
+     */
+    public void add(FileResult result) {
+        results.add(result);
+    }
+
+    /**
+     * Sets the time the whole import took
+     *
+     * @param wallSeconds from the first file starting to the last finishing
+     */
+    public void setWallSeconds(double wallSeconds) {
+        this.wallSeconds = wallSeconds;
+    }
+
+    /**
+     * @return the time the whole import took, in seconds
+     */
+    public double getWallSeconds() {
+        return wallSeconds;
+    }
+
+    /**
+     * @return the result of every file, in the order they were given
+     */
+    public List<FileResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return the results of the files that failed to load
+     */
+    public List<FileResult> getFailures() {
+        List<FileResult> failures = new ArrayList<>();
+        for (FileResult result : results) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Creates a summary with a line per file
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        long totalRows = 0;
+        for (FileResult result : results) {
+            if (result.isSuccess()) {
+                totalRows += result.getRows();
+                output.append(String.format("%-30s %10d rows %8.2fs %10.0f rows/s%n",
+                        result.getFilename(), result.getRows(), result.getSeconds(), result.getRowsPerSecond()));
+            } else {
+                output.append(String.format("%-30s FAILED: %s%n", result.getFilename(),
+                        result.getError().getMessage()));
+            }
+        }
+        output.append(String.format("Total: %d rows in %.2fs", totalRows, wallSeconds));
+        return output.toString();
+    }
+}
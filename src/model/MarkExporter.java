@@ -0,0 +1,95 @@
+package model;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes every student's highest mark to a CSV. The marks are worked out by the server in one aggregate query over
+ * student_submissions and student_answers, and the rows are streamed into the CSV as they arrive, so nothing is loaded
+ * or graded again and the memory used does not depend on the number of students or submissions.
+ * <p>
+ * A student's highest mark is the best total of any one submission, and 0 if they have not submitted. Optionally the
+ * best mark for each question across all of the student's submissions is written after it. Marks are the ones saved
+ * when the answers were graded.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class MarkExporter {
+    private final List<Integer> questionNums;
+
+    /**
+     * Creates an exporter for only the highest mark
+     */
+    public MarkExporter() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Creates an exporter that also writes the best mark for each of the given questions
+     *
+     * @param questionNums of the questions to add a column for
+     */
+    public MarkExporter(List<Integer> questionNums) {
+        this.questionNums = new ArrayList<>(questionNums);
+    }
+
+    /**
+     * Gets the columns written for each student
+     *
+     * @return student_num, highest_mark and question_N for each question
+     */
+    public List<String> getHeading() {
+        List<String> heading = new ArrayList<>();
+        heading.add("student_num");
+        heading.add("highest_mark");
+        for (int questionNum : questionNums) {
+            heading.add("question_" + questionNum);
+        }
+        return heading;
+    }
+
+    /**
+     * Builds the query, the marks are totalled per submission and then the best submission taken per student
+     *
+     * @return SQL to run against admin_data
+     */
+    String query() {
+        StringBuilder perSubmission = new StringBuilder("SELECT sub.student_num, SUM(a.mark) AS total");
+        StringBuilder perStudent = new StringBuilder("SELECT s.student_num, COALESCE(MAX(t.total), 0)");
+        for (int questionNum : questionNums) {
+            perSubmission.append(", MAX(CASE WHEN a.question_num = ").append(questionNum)
+                    .append(" THEN a.mark END) AS q").append(questionNum);
+            perStudent.append(", COALESCE(MAX(t.q").append(questionNum).append("), 0)");
+        }
+        perSubmission.append(" FROM student_submissions sub JOIN student_answers a")
+                .append(" ON a.submission_id = sub.submission_id GROUP BY sub.submission_id, sub.student_num");
+        return perStudent.append(" FROM students s LEFT JOIN (").append(perSubmission)
+                .append(") t ON t.student_num = s.student_num GROUP BY s.student_num ORDER BY s.student_num;")
+                .toString();
+    }
+
+    /**
+     * Writes a row for every student to a CSV, the heading is not written
+     *
+     * @param db  connected to admin_data
+     * @param csv opened for writing
+     * @return the number of students written
+     * @throws Error if the marks cannot be read or the CSV cannot be written
+     */
+    public long export(Database db, CSV csv) throws Error {
+        try (Statement statement = db.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            // Stream the rows instead of reading the whole result into memory first
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery(query())) {
+                return csv.writeAll(rs);
+            }
+        } catch (SQLException e) {
+            throw new Error("Error exporting marks", e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package model;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide timers, counters and gauges for the grading hot path. Database and Dataset record how long each phase
+ * takes: connect (borrowing a connection), clone (copying data_store into a sandbox), execute, fetch (reading the
+ * result or table checksums), compare and drop, and Submission records save (storing a submission). The pools
+ * register gauges for their current usage.
+ * <p>
+ * The metrics can be read through JMX (sqlmark:type=Metrics and sqlmark:type=Phase,name=&lt;phase&gt;) or in the
+ * Prometheus text format from http://127.0.0.1:&lt;port&gt;/metrics. Student SQL that takes longer than the slow
+ * query threshold is logged with the student number of the answer being graded.
+ * <p>
+ * Settings: sqlmark.metrics.jmx (default true), sqlmark.metrics.port for the HTTP endpoint (default 0, off),
+ * sqlmark.metrics.slow threshold in milliseconds (default 1000) and sqlmark.metrics.slowlog file to append slow
+ * queries to (default none, they are printed to standard error)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class Metrics implements MetricsMXBean {
+    private static final ThreadLocal<String> student = new ThreadLocal<>();
+
+    private final Map<String, PhaseTimer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LongAdder slowQueries = new LongAdder();
+    private final long slowNanos;
+    private final Path slowLog;
+    private final boolean jmx;
+    private HttpServer server;
+
+    /**
+     * Holds the metrics, which the JVM creates when getInstance is first called. Unlike a synchronized getter there is
+     * no lock to take afterwards, getInstance is called several times for every statement graded.
+     */
+    private static class Holder {
+        private static final Metrics INSTANCE = create();
+    }
+
+    /**
+     * Gets the metrics for this process, creating them on first use
+     *
+     * @return the metrics
+     */
+    public static Metrics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Creates the metrics from the settings and starts the HTTP endpoint if there is one
+     *
+     * @return the metrics
+     */
+    private static Metrics create() {
+        String slowLog = Config.getString("sqlmark.metrics.slowlog", "");
+        Metrics metrics = new Metrics(Config.getLong("sqlmark.metrics.slow", 1000) * 1000000,
+                slowLog.isEmpty() ? null : Paths.get(slowLog),
+                Config.getBoolean("sqlmark.metrics.jmx", true));
+        int port = Config.getInt("sqlmark.metrics.port", 0);
+        if (port > 0) {
+            try {
+                metrics.startServer(port);
+            } catch (Error e) {
+                e.printStackTrace();
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Creates the metrics
+     *
+     * @param slowNanos statements that take at least this long are logged
+     * @param slowLog   file to append slow queries to, null for standard error
+     * @param jmx       whether to register the metrics with the platform MBean server
+     */
+    Metrics(long slowNanos, Path slowLog, boolean jmx) {
+        this.slowNanos = slowNanos;
+        this.slowLog = slowLog;
+        this.jmx = jmx;
+        if (jmx) {
+            register("sqlmark:type=Metrics", this);
+        }
+    }
+
+    /**
+     * Sets the student whose answer the current thread is grading, so slow queries can be traced back to them
+     *
+     * @param studentNum of the student, null for none
+     */
+    public static void setStudent(String studentNum) {
+        if (studentNum == null) {
+            student.remove();
+        } else {
+            student.set(studentNum);
+        }
+    }
+
+    /**
+     * Gets the student whose answer the current thread is grading
+     *
+     * @return the student number, null if the thread is not grading a student's answer
+     */
+    public static String getStudent() {
+        return student.get();
+    }
+
+    /**
+     * Gets the timer of a phase, creating it the first time
+     *
+     * @param phase name, such as execute
+     * @return the timer
+     */
+    public PhaseTimer timer(String phase) {
+        PhaseTimer timer = timers.get(phase);
+        if (timer == null) {
+            PhaseTimer created = new PhaseTimer(phase);
+            timer = timers.putIfAbsent(phase, created);
+            if (timer == null) {
+                timer = created;
+                if (jmx) {
+                    register("sqlmark:type=Phase,name=" + phase, created);
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Records a phase that started at the given time and has just finished
+     *
+     * @param phase name, such as execute
+     * @param start of the phase, from System.nanoTime()
+     */
+    public void recordSince(String phase, long start) {
+        timer(phase).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Adds one to a counter, creating it the first time
+     *
+     * @param name of the counter, such as fastpath_matches
+     */
+    public void increment(String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Adds a gauge, which is read whenever the metrics are exported. A gauge with the same name is replaced.
+     *
+     * @param name  of the gauge, such as pool_active
+     * @param value reads the current value
+     */
+    public void gauge(String name, Supplier<Number> value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Logs a statement if it took longer than the slow query threshold
+     *
+     * @param sql   that was run
+     * @param nanos it took to execute and fetch
+     */
+    public void checkSlow(String sql, long nanos) {
+        if (nanos < slowNanos) {
+            return;
+        }
+        slowQueries.increment();
+        String studentNum = getStudent();
+        String line = String.format("%s slow query %dms student %s: %s%n", LocalDateTime.now(), nanos / 1000000,
+                studentNum == null ? "-" : studentNum, sql.replaceAll("\\s+", " ").trim());
+        if (slowLog == null) {
+            System.err.print(line);
+            return;
+        }
+        synchronized (this) {
+            try {
+                Files.write(slowLog, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.print(line);
+            }
+        }
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            values.put(counter.getKey(), counter.getValue().sum());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getGauges() {
+        Map<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, Supplier<Number>> gauge : gauges.entrySet()) {
+            try {
+                values.put(gauge.getKey(), gauge.getValue().get().doubleValue());
+            } catch (RuntimeException e) {
+                // A gauge that cannot be read right now is left out
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP sqlmark_phase_seconds Time taken by each phase of running and grading SQL\n");
+        text.append("# TYPE sqlmark_phase_seconds histogram\n");
+        for (PhaseTimer timer : new TreeMap<>(timers).values()) {
+            long[] counts = timer.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String bound = i < PhaseTimer.BOUNDS_MICROS.length
+                        ? seconds(PhaseTimer.BOUNDS_MICROS[i] * 1000) : "+Inf";
+                text.append("sqlmark_phase_seconds_bucket{phase=\"").append(timer.getPhase()).append("\",le=\"")
+                        .append(bound).append("\"} ").append(cumulative).append('\n');
+            }
+            text.append("sqlmark_phase_seconds_sum{phase=\"").append(timer.getPhase()).append("\"} ")
+                    .append(seconds(timer.getTotalNanos())).append('\n');
+            text.append("sqlmark_phase_seconds_count{phase=\"").append(timer.getPhase()).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        text.append("# TYPE sqlmark_slow_queries_total counter\n");
+        text.append("sqlmark_slow_queries_total ").append(getSlowQueryCount()).append('\n');
+        for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+            text.append("# TYPE sqlmark_").append(counter.getKey()).append("_total counter\n");
+            text.append("sqlmark_").append(counter.getKey()).append("_total ").append(counter.getValue())
+                    .append('\n');
+        }
+        for (Map.Entry<String, Double> gauge : getGauges().entrySet()) {
+            text.append("# TYPE sqlmark_").append(gauge.getKey()).append(" gauge\n");
+            text.append("sqlmark_").append(gauge.getKey()).append(' ').append(gauge.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Serves the metrics in the Prometheus text format at /metrics on the loopback address
+     *
+     * @param port to listen on, 0 for any free port
+     * @return the port listened on
+     * @throws Error if the server is already running or the port cannot be listened on
+     */
+    public synchronized int startServer(int port) throws Error {
+        if (server != null) {
+            throw new Error("The metrics endpoint is already running on port " + server.getAddress().getPort());
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new Error("Couldn't serve the metrics on port " + port, e);
+        }
+        server.createContext("/metrics", exchange -> {
+            byte[] body = getPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving the metrics, if the endpoint is running
+     */
+    public synchronized void stopServer() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Formats a time in seconds
+     *
+     * @param nanos the time
+     * @return the seconds, as Prometheus expects them
+     */
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9).replaceAll("0+$", "").replaceAll("\\.$", ".0");
+    }
+
+    /**
+     * Registers a bean with the platform MBean server, a bean that cannot be registered is skipped
+     *
+     * @param name of the bean
+     * @param bean to register
+     */
+    private static void register(String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Couldn't register " + name + " with JMX: " + e.getMessage());
+        }
+    }
+}
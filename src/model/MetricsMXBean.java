@@ -0,0 +1,31 @@
+package model;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the Metrics registry, registered as sqlmark:type=Metrics
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public interface MetricsMXBean {
+    /**
+     * @return the value of every counter, such as the answers graded without running them, by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return the current value of every gauge, such as the connections in use, by name
+     */
+    Map<String, Double> getGauges();
+
+    /**
+     * @return the number of statements that were logged as slow
+     */
+    long getSlowQueryCount();
+
+    /**
+     * @return every metric in the Prometheus text format
+     */
+    String getPrometheusText();
+}
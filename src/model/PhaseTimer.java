@@ -0,0 +1,145 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of how long one phase of grading takes, such as borrowing a connection or executing a statement.
+ * Times are counted into fixed buckets, so recording is cheap and lock free and the memory used does not grow with
+ * the number of times recorded. Percentiles are read from the buckets, so they are the upper bound of the bucket the
+ * percentile falls in.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class PhaseTimer implements PhaseTimerMXBean {
+    /**
+     * Upper bounds of the buckets in microseconds, times above the last bound go into an overflow bucket
+     */
+    static final long[] BOUNDS_MICROS = {500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+            1000000, 2500000, 5000000, 10000000, 30000000};
+
+    private final String phase;
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+    /**
+     * Creates an empty timer
+     *
+     * @param phase that is timed
+     */
+    public PhaseTimer(String phase) {
+        this.phase = phase;
+        this.buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Records one run of the phase
+     *
+     * @param nanos the phase took
+     */
+    public void record(long nanos) {
+        long elapsed = Math.max(0, nanos);
+        long micros = elapsed / 1000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * @return the phase that is timed
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the number of times recorded in each bucket, the last count is the overflow bucket
+     *
+     * @return a count per bucket, not cumulative
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @return the total time recorded in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long runs = count.sum();
+        return runs == 0 ? 0 : totalNanos.sum() / 1e6 / runs;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return getPercentileMillis(50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return getPercentileMillis(95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return getPercentileMillis(99);
+    }
+
+    /**
+     * Gets a percentile from the buckets, never more than the longest time recorded
+     *
+     * @param percentile to get, from 0 to 100
+     * @return the time in milliseconds, 0 if nothing has been recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long bucket : counts) {
+            total += bucket;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MICROS[i] / 1e3, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+}
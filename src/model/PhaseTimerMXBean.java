@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * The JMX view of a PhaseTimer, registered as sqlmark:type=Phase,name=&lt;phase&gt;
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public interface PhaseTimerMXBean {
+    /**
+     * @return the number of times the phase ran
+     */
+    long getCount();
+
+    /**
+     * @return the mean time the phase took in milliseconds
+     */
+    double getMeanMillis();
+
+    /**
+     * @return the longest time the phase took in milliseconds
+     */
+    double getMaxMillis();
+
+    /**
+     * @return the median time in milliseconds, to the nearest bucket
+     */
+    double getP50Millis();
+
+    /**
+     * @return the 95th percentile time in milliseconds, to the nearest bucket
+     */
+    double getP95Millis();
+
+    /**
+     * @return the 99th percentile time in milliseconds, to the nearest bucket
+     */
+    double getP99Millis();
+}
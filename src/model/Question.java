@@ -8,7 +8,10 @@ package model;
 public class Question {
     private int questionNum;
     private String questionText;
-    private Dataset correctAnswer;
+    private volatile Dataset correctAnswer;
+    private String answerSql;
+    private String canonicalAnswer;
+    private String answerSelectList;
     private FeedbackType feedbackType;
 
     /**
@@ -35,11 +38,45 @@ public class Question {
     }
 
     /**
-     * Get the correct answer
+     * Get the correct answer for the current data. It is looked up in the ExpectedResultCache every time, so it is run
+     * again once the DataVersion moves on, and an answer that failed is run again as failed results are not cached.
+     * If the data version cannot be read the last result is used.
      * @return correct answer
      */
     public Dataset getCorrectAnswer() {
-        return correctAnswer;
+        try {
+            Dataset answer = ExpectedResultCache.get(answerSql);
+            correctAnswer = answer;
+            return answer;
+        } catch (Error e) {
+            e.printStackTrace();
+            return correctAnswer;
+        }
+    }
+
+    /**
+     * Returns the SQL of the correct answer
+     * @return answer SQL
+     */
+    public String getAnswerSql() {
+        return answerSql;
+    }
+
+    /**
+     * Checks whether some SQL is the correct answer written differently, only in whitespace, comments, keyword case,
+     * quote style or a trailing semicolon, so its result is known without running it. The select list has to be
+     * written exactly the same, as MariaDB heads an unaliased expression with its text as written and the student
+     * must get the headings their own SQL would give.
+     * @param sql to check
+     * @return true if the SQL canonically matches an answer that ran successfully, with the same select list
+     * @see SQLCanonicalizer
+     */
+    public boolean isAnswer(String sql) {
+        if (!canonicalAnswer.equals(SQLCanonicalizer.canonicalSql(sql))
+                || !answerSelectList.equals(new SQLStatement(sql).getSelectList())) {
+            return false;
+        }
+        return getCorrectAnswer().getCompileStatus() == Database.CompileStatus.SUCCESS;
     }
 
     /**
@@ -56,12 +93,15 @@ public class Question {
      * @param questionText of the question
      * @param correctAnswer answer for the question
      * @param feedbackType level of feedback
-     * @throws Error if it cannot create the dataSet object for the answer
+     * @throws Error if it cannot fetch the dataSet object for the answer
      */
     public Question(int questionNum, String questionText, String correctAnswer, FeedbackType feedbackType) throws Error{
         this.questionNum = questionNum;
         this.questionText = questionText;
-        this.correctAnswer = new Dataset(correctAnswer);
+        this.correctAnswer = ExpectedResultCache.get(correctAnswer);
+        this.answerSql = correctAnswer;
+        this.canonicalAnswer = SQLCanonicalizer.canonicalSql(correctAnswer);
+        this.answerSelectList = new SQLStatement(correctAnswer).getSelectList();
         this.feedbackType = feedbackType;
     }
 }
\ No newline at end of file
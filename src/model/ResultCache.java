@@ -0,0 +1,218 @@
+package model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Process-wide cache of the results of students' queries, so when many students give the same query for a question it
+ * is only run once. Entries are keyed by the normalized SQL (see SQLStatement.getNormalizedSql), the select list as
+ * written and the DataVersion, and only queries that SQLStatement.isCacheable proves have no side effects and depend
+ * only on the data are cached. Students running the same query at the same time share one execution. Only successful
+ * results are kept, and the least recently used are evicted once there are too many entries or they take too much
+ * memory.
+ * <p>
+ * The select list is part of the key because the heading of an unaliased expression is its text as written, so
+ * SELECT a+b and SELECT a + b have different headings and must not share a result.
+ * <p>
+ * Settings: sqlmark.resultcache.entries (default 1000, 0 turns the cache off) and sqlmark.resultcache.bytes (default
+ * 64MB)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ResultCache {
+    private static ResultCache instance;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<ResultKey, Dataset> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<ResultKey, CompletableFuture<Dataset>> running = new ConcurrentHashMap<>();
+    private int version = -1;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Gets the cache for this process, creating it on first use
+     *
+     * @return the cache
+     */
+    public static synchronized ResultCache getInstance() {
+        if (instance == null) {
+            instance = new ResultCache(Config.getInt("sqlmark.resultcache.entries", 1000),
+                    Config.getLong("sqlmark.resultcache.bytes", 64L * 1024 * 1024));
+            Metrics metrics = Metrics.getInstance();
+            metrics.gauge("resultcache_hits", instance::getHits);
+            metrics.gauge("resultcache_misses", instance::getMisses);
+            metrics.gauge("resultcache_hit_rate", instance::getHitRate);
+            metrics.gauge("resultcache_entries", instance::size);
+            metrics.gauge("resultcache_bytes", instance::getBytes);
+            metrics.gauge("resultcache_evictions", instance::getEvictions);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates an empty cache
+     *
+     * @param maxEntries results kept at most, 0 to cache nothing
+     * @param maxBytes   estimated memory the results can take up
+     */
+    ResultCache(int maxEntries, long maxBytes) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Runs a student's statement under the default ExecutionLimits, or gets its result from the cache if it is a
+     * cacheable query that has already been run against the current data
+     *
+     * @param sql to run
+     * @return the result, which must not be changed as it may be shared
+     * @throws UnavailableException if there was no sandbox or connection to run it on
+     */
+    public Dataset run(String sql) {
+        SQLStatement statement = new SQLStatement(sql);
+        if (maxEntries == 0 || !statement.isCacheable()) {
+            return new Dataset(statement, ExecutionLimits.getDefault());
+        }
+        int current;
+        try {
+            current = DataVersion.current();
+        } catch (Error e) {
+            return new Dataset(statement, ExecutionLimits.getDefault());
+        }
+        return get(statement, current, s -> new Dataset(s, ExecutionLimits.getDefault()));
+    }
+
+    /**
+     * Gets the result of a cacheable statement, running it only if it is not cached
+     *
+     * @param statement   a cacheable query
+     * @param dataVersion the statement runs against
+     * @param runner      runs the statement on a miss
+     * @return the result
+     */
+    Dataset get(SQLStatement statement, int dataVersion, Function<SQLStatement, Dataset> runner) {
+        ResultKey key = new ResultKey(statement.getNormalizedSql(), statement.getSelectList(), dataVersion);
+        synchronized (this) {
+            if (dataVersion != version) {
+                entries.clear();
+                bytes = 0;
+                version = dataVersion;
+            }
+            Dataset cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        CompletableFuture<Dataset> mine = new CompletableFuture<>();
+        CompletableFuture<Dataset> existing = running.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UnavailableException) {
+                    throw (UnavailableException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            Dataset dataset = runner.apply(statement);
+            if (dataset.getCompileStatus() == Database.CompileStatus.SUCCESS) {
+                put(key, dataset);
+            }
+            mine.complete(dataset);
+            return dataset;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, mine);
+        }
+    }
+
+    /**
+     * Adds a result and evicts the least recently used ones until the cache is within its limits
+     *
+     * @param key     of the result
+     * @param dataset the result
+     */
+    private synchronized void put(ResultKey key, Dataset dataset) {
+        long size = dataset.getEstimatedBytes();
+        if (key.getVersion() != version || size > maxBytes) {
+            return;
+        }
+        Dataset replaced = entries.put(key, dataset);
+        if (replaced != null) {
+            bytes -= replaced.getEstimatedBytes();
+        }
+        bytes += size;
+        Iterator<Dataset> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().getEstimatedBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Empties the cache
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the estimated memory taken up by the cached results, in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of times a result was found in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of times a cacheable query was not in the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of results evicted to stay within the limits
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the fraction of cacheable queries answered from the cache, 0 if there have been none
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,336 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares a student's result with the expected result row by row using per-row hashes, without copying either.
+ * When the expected SQL has an ORDER BY the rows must match in order, otherwise they are compared as a multiset.
+ * Rows with equal hashes are still checked value by value, so a hash collision can never give a false match.
+ * The missing and extra rows are kept (up to a few samples) so the student can be told what was different.
+ * DML has no result, so the checksums of the tables it changed are compared instead. A student's statement that did
+ * not run is never equal, and is reported as such rather than as a different result.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ResultComparison {
+    private static final int SAMPLES = 5;
+
+    private final boolean equal;
+    private final boolean columnsDiffer;
+    private final boolean orderDiffers;
+    private final int missing;
+    private final int extra;
+    private final List<List<Object>> missingSamples;
+    private final List<List<Object>> extraSamples;
+    private final List<String> differences;
+
+    /**
+     * Stores the outcome of a comparison
+     */
+    private ResultComparison(boolean equal, boolean columnsDiffer, boolean orderDiffers, int missing, int extra,
+                             List<List<Object>> missingSamples, List<List<Object>> extraSamples) {
+        this.equal = equal;
+        this.columnsDiffer = columnsDiffer;
+        this.orderDiffers = orderDiffers;
+        this.missing = missing;
+        this.extra = extra;
+        this.missingSamples = missingSamples;
+        this.extraSamples = extraSamples;
+        this.differences = new ArrayList<>();
+    }
+
+    /**
+     * Stores the outcome of a comparison that had no rows to compare, such as the tables changed by DML
+     */
+    private ResultComparison(List<String> differences) {
+        this.equal = differences.isEmpty();
+        this.columnsDiffer = false;
+        this.orderDiffers = false;
+        this.missing = 0;
+        this.extra = 0;
+        this.missingSamples = new ArrayList<>();
+        this.extraSamples = new ArrayList<>();
+        this.differences = differences;
+    }
+
+    /**
+     * Compares a result with the expected result
+     *
+     * @param expected result, its SQL decides whether row order matters
+     * @param actual   result the student got
+     * @return the comparison
+     */
+    public static ResultComparison compare(Dataset expected, Dataset actual) {
+        if (actual.getCompileStatus() != Database.CompileStatus.SUCCESS) {
+            List<String> differences = new ArrayList<>();
+            differences.add(actual.getCompileStatus() == Database.CompileStatus.LIMIT_EXCEEDED
+                    ? "Your statement was stopped before it finished" : "Your statement did not run");
+            return new ResultComparison(differences);
+        }
+        if (expected.getTableStates() != null || actual.getTableStates() != null) {
+            return compareTables(expected.getTableStates(), actual.getTableStates());
+        }
+        if (!expected.hasResult() || !actual.hasResult()) {
+            boolean equal = expected.hasResult() == actual.hasResult();
+            return new ResultComparison(equal, !equal, false, 0, 0, new ArrayList<>(), new ArrayList<>());
+        }
+        if (!sameColumns(expected, actual)) {
+            return new ResultComparison(false, true, false, expected.getRowCount(), actual.getRowCount(),
+                    new ArrayList<>(), new ArrayList<>());
+        }
+        if (expected.isOrdered()) {
+            boolean inOrder = expected.getRowCount() == actual.getRowCount();
+            for (int row = 0; inOrder && row < expected.getRowCount(); row++) {
+                inOrder = hash(expected, row) == hash(actual, row) && sameRow(expected, row, actual, row);
+            }
+            if (inOrder) {
+                return new ResultComparison(true, false, false, 0, 0, new ArrayList<>(), new ArrayList<>());
+            }
+            ResultComparison unordered = compareUnordered(expected, actual);
+            return new ResultComparison(false, false, unordered.equal, unordered.missing, unordered.extra,
+                    unordered.missingSamples, unordered.extraSamples);
+        }
+        return compareUnordered(expected, actual);
+    }
+
+    /**
+     * Compares the state of the tables two DML statements left behind
+     *
+     * @param expected table states, null if the expected SQL was not DML
+     * @param actual   table states, null if the student's SQL was not DML or failed
+     * @return the comparison
+     */
+    private static ResultComparison compareTables(List<TableChecksum> expected, List<TableChecksum> actual) {
+        List<String> differences = new ArrayList<>();
+        if (expected == null) {
+            differences.add("Your statement should not change the data");
+            return new ResultComparison(differences);
+        }
+        if (actual == null) {
+            differences.add("Your statement should change the data");
+            return new ResultComparison(differences);
+        }
+        for (TableChecksum table : expected) {
+            TableChecksum match = find(actual, table.getTable());
+            if (match == null) {
+                differences.add("Table " + table.getTable() + " should be changed");
+            } else if (match.getRows() != table.getRows()) {
+                differences.add("Table " + table.getTable() + " has " + match.getRows() + " row(s), expected "
+                        + table.getRows());
+            } else if (!match.matches(table)) {
+                differences.add("Table " + table.getTable() + " does not hold the expected values");
+            }
+        }
+        for (TableChecksum table : actual) {
+            if (find(expected, table.getTable()) == null) {
+                differences.add("Table " + table.getTable() + " should not be changed");
+            }
+        }
+        return new ResultComparison(differences);
+    }
+
+    /**
+     * Finds the checksum of a table, table names are not case sensitive
+     */
+    private static TableChecksum find(List<TableChecksum> tables, String table) {
+        for (TableChecksum checksum : tables) {
+            if (checksum.getTable().equalsIgnoreCase(table)) {
+                return checksum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the rows as a multiset, counting the rows only in one of the two results
+     *
+     * @param expected result
+     * @param actual   result
+     * @return the comparison
+     */
+    private static ResultComparison compareUnordered(Dataset expected, Dataset actual) {
+        Map<Long, List<Integer>> remaining = new HashMap<>();
+        for (int row = 0; row < expected.getRowCount(); row++) {
+            remaining.computeIfAbsent(hash(expected, row), key -> new ArrayList<>(1)).add(row);
+        }
+        int extra = 0;
+        List<List<Object>> extraSamples = new ArrayList<>();
+        for (int row = 0; row < actual.getRowCount(); row++) {
+            List<Integer> candidates = remaining.get(hash(actual, row));
+            boolean found = false;
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size() && !found; i++) {
+                    if (sameRow(expected, candidates.get(i), actual, row)) {
+                        candidates.remove(i);
+                        found = true;
+                    }
+                }
+            }
+            if (!found) {
+                extra++;
+                if (extraSamples.size() < SAMPLES) {
+                    extraSamples.add(rowOf(actual, row));
+                }
+            }
+        }
+        int missing = 0;
+        List<List<Object>> missingSamples = new ArrayList<>();
+        for (List<Integer> rows : remaining.values()) {
+            for (int row : rows) {
+                missing++;
+                if (missingSamples.size() < SAMPLES) {
+                    missingSamples.add(rowOf(expected, row));
+                }
+            }
+        }
+        return new ResultComparison(missing == 0 && extra == 0, false, false, missing, extra,
+                missingSamples, extraSamples);
+    }
+
+    /**
+     * @return whether the results match
+     */
+    public boolean isEqual() {
+        return equal;
+    }
+
+    /**
+     * @return the number of expected rows the student's result does not have
+     */
+    public int getMissing() {
+        return missing;
+    }
+
+    /**
+     * @return the number of rows in the student's result that were not expected
+     */
+    public int getExtra() {
+        return extra;
+    }
+
+    /**
+     * Describes what was different, for feedback
+     *
+     * @return the summary, blank if the results match
+     */
+    public String getSummary() {
+        if (equal) {
+            return "";
+        }
+        if (!differences.isEmpty()) {
+            return String.join("\n", differences);
+        }
+        if (columnsDiffer) {
+            return "Your columns do not match the expected columns";
+        }
+        if (orderDiffers) {
+            return "You have the right rows but in the wrong order";
+        }
+        StringBuilder summary = new StringBuilder();
+        summary.append(missing).append(" expected row(s) missing, ").append(extra).append(" unexpected row(s)");
+        appendSamples(summary, "Missing", missing, missingSamples);
+        appendSamples(summary, "Unexpected", extra, extraSamples);
+        return summary.toString();
+    }
+
+    /**
+     * Adds sample rows to a summary
+     */
+    private static void appendSamples(StringBuilder summary, String label, int count, List<List<Object>> samples) {
+        if (!samples.isEmpty()) {
+            summary.append("\n").append(label).append(":");
+            for (List<Object> row : samples) {
+                summary.append("\n  ").append(row);
+            }
+            if (count > samples.size()) {
+                summary.append("\n  ... and ").append(count - samples.size()).append(" more");
+            }
+        }
+    }
+
+    /**
+     * Checks both results have the same columns, column names are not case sensitive in MariaDB
+     */
+    private static boolean sameColumns(Dataset expected, Dataset actual) {
+        if (expected.getColumnCount() != actual.getColumnCount()) {
+            return false;
+        }
+        for (int column = 0; column < expected.getColumnCount(); column++) {
+            if (!expected.getColumnName(column).equalsIgnoreCase(actual.getColumnName(column))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks two rows hold equal values
+     */
+    private static boolean sameRow(Dataset expected, int expectedRow, Dataset actual, int actualRow) {
+        for (int column = 0; column < expected.getColumnCount(); column++) {
+            if (!sameValue(expected.getValue(expectedRow, column), actual.getValue(actualRow, column))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks two values are equal, comparing binary values by content
+     */
+    private static boolean sameValue(Object expected, Object actual) {
+        if (expected instanceof byte[] && actual instanceof byte[]) {
+            return Arrays.equals((byte[]) expected, (byte[]) actual);
+        }
+        return Objects.equals(expected, actual);
+    }
+
+    /**
+     * Hashes a row into 64 bits, so rows that differ almost never share a hash
+     *
+     * @param dataset holding the row
+     * @param row     index, from 0
+     * @return the hash
+     */
+    static long hash(Dataset dataset, int row) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int column = 0; column < dataset.getColumnCount(); column++) {
+            Object value = dataset.getValue(row, column);
+            int valueHash = value instanceof byte[] ? Arrays.hashCode((byte[]) value) : Objects.hashCode(value);
+            hash = Long.rotateLeft(hash ^ mix(valueHash), 27) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Spreads the bits of a hash (the MurmurHash3 finaliser)
+     *
+     * @param hash to spread
+     * @return the mixed hash
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Copies one row, only used for the few sample rows in the summary
+     */
+    private static List<Object> rowOf(Dataset dataset, int row) {
+        List<Object> values = new ArrayList<>(dataset.getColumnCount());
+        for (int column = 0; column < dataset.getColumnCount(); column++) {
+            values.add(dataset.getValue(row, column));
+        }
+        return values;
+    }
+}
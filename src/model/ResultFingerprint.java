@@ -0,0 +1,137 @@
+package model;
+
+/**
+ * A small summary of a result that is kept instead of the result itself once an answer has been graded: a content
+ * hash, the row and column counts and a preview of the first few rows. The hash only depends on the values (and their
+ * order when the result is ordered) or, for DML, the table checksums, so the same result always gives the same
+ * fingerprint.
+ * <p>
+ * Settings: sqlmark.feedback.preview, the number of rows kept in the preview (default 10)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class ResultFingerprint {
+    private final long hash;
+    private final int rowCount;
+    private final int columnCount;
+    private final String preview;
+
+    /**
+     * Creates a fingerprint
+     *
+     * @param hash        of the values
+     * @param rowCount    of the result
+     * @param columnCount of the result
+     * @param preview     of the first rows
+     */
+    private ResultFingerprint(long hash, int rowCount, int columnCount, String preview) {
+        this.hash = hash;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.preview = preview;
+    }
+
+    /**
+     * Fingerprints a result with the configured preview size
+     *
+     * @param dataset to fingerprint
+     * @return the fingerprint
+     */
+    public static ResultFingerprint of(Dataset dataset) {
+        return of(dataset, Config.getInt("sqlmark.feedback.preview", 10));
+    }
+
+    /**
+     * Fingerprints a result
+     *
+     * @param dataset     to fingerprint
+     * @param previewRows the number of rows to keep in the preview
+     * @return the fingerprint
+     */
+    public static ResultFingerprint of(Dataset dataset, int previewRows) {
+        long hash = 0;
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            long rowHash = ResultComparison.hash(dataset, row);
+            // Unordered results are a multiset, so their row hashes are combined in a way that ignores order
+            hash = dataset.isOrdered() ? Long.rotateLeft(hash, 31) * 0x100000001B3L ^ rowHash : hash + rowHash;
+        }
+        for (int column = 0; column < dataset.getColumnCount(); column++) {
+            hash = hash * 31 + dataset.getColumnName(column).toLowerCase().hashCode();
+        }
+        if (dataset.getTableStates() != null) {
+            for (TableChecksum table : dataset.getTableStates()) {
+                hash = hash * 31 + table.toString().toLowerCase().hashCode();
+            }
+        }
+        hash = ResultComparison.mix(hash ^ ((long) dataset.getRowCount() << 32 | dataset.getColumnCount()));
+        return new ResultFingerprint(hash, dataset.getRowCount(), dataset.getColumnCount(),
+                preview(dataset, previewRows));
+    }
+
+    /**
+     * Formats the column names and first rows the same way Dataset.toString does
+     *
+     * @param dataset     to preview
+     * @param previewRows the number of rows to include
+     * @return the preview, blank if there is no result
+     */
+    private static String preview(Dataset dataset, int previewRows) {
+        StringBuilder preview = new StringBuilder();
+        if (dataset.hasResult()) {
+            for (int column = 0; column < dataset.getColumnCount(); column++) {
+                preview.append(String.format("%-25s|", dataset.getColumnName(column)));
+            }
+            preview.setLength(Math.max(preview.length() - 1, 0));
+            preview.append("\n");
+            int rows = Math.min(previewRows, dataset.getRowCount());
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < dataset.getColumnCount(); column++) {
+                    preview.append(String.format("%-25s|", String.valueOf(dataset.getValue(row, column))));
+                }
+                preview.setLength(Math.max(preview.length() - 1, 0));
+                preview.append("\n");
+            }
+            if (dataset.getRowCount() > rows) {
+                preview.append("... ").append(dataset.getRowCount() - rows).append(" more row(s)\n");
+            }
+        }
+        return preview.toString();
+    }
+
+    /**
+     * @return the hash of the values
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the number of rows in the result
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of columns in the result
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return the column names and first rows of the result
+     */
+    public String getPreview() {
+        return preview;
+    }
+
+    /**
+     * @return the preview
+     */
+    @Override
+    public String toString() {
+        return preview;
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import java.util.Objects;
+
+/**
+ * Identifies a cached result by the SQL that produced it and the DataVersion it was run against, used by both
+ * ResultCache and ExpectedResultCache. ResultCache also keys on the select list as written, as it decides the column
+ * headings.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+final class ResultKey {
+    private final String sql;
+    private final String selectList;
+    private final int version;
+
+    /**
+     * Creates a key
+     *
+     * @param sql     that produced the result
+     * @param version of the data it was run against
+     */
+    ResultKey(String sql, int version) {
+        this(sql, "", version);
+    }
+
+    /**
+     * Creates a key for a result whose column headings depend on how its select list was written
+     *
+     * @param sql        that produced the result, normalized
+     * @param selectList as written, see SQLStatement.getSelectList
+     * @param version    of the data it was run against
+     */
+    ResultKey(String sql, String selectList, int version) {
+        this.sql = sql;
+        this.selectList = selectList;
+        this.version = version;
+    }
+
+    /**
+     * @return the DataVersion the result was run against
+     */
+    int getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ResultKey)) {
+            return false;
+        }
+        ResultKey key = (ResultKey) o;
+        return version == key.version && sql.equals(key.sql) && selectList.equals(key.selectList);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql, selectList, version);
+    }
+}
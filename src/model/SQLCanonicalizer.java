@@ -0,0 +1,210 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrites SQL tokens into a canonical form, so statements that MariaDB treats the same but that are written
+ * differently produce the same token stream. Whitespace and comments are dropped, as is a trailing semicolon,
+ * keywords and function names are upper cased, strings are single quoted and backticks are removed from plain
+ * identifiers. Identifiers keep their case, as table names and aliases are case sensitive in MariaDB.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class SQLCanonicalizer {
+    /**
+     * Keywords that are upper cased
+     */
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "DISTINCT", "DISTINCTROW", "ALL", "FROM", "WHERE", "AND", "OR", "NOT", "XOR", "IN", "IS", "NULL",
+            "LIKE", "BETWEEN", "EXISTS", "AS", "ON", "USING", "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "CROSS",
+            "NATURAL", "STRAIGHT_JOIN", "GROUP", "BY", "HAVING", "ORDER", "ASC", "DESC", "LIMIT", "OFFSET", "UNION",
+            "INTERSECT", "EXCEPT", "WITH", "RECURSIVE", "ROLLUP", "CASE", "WHEN", "THEN", "ELSE", "END", "TRUE",
+            "FALSE", "UNKNOWN", "DIV", "MOD", "REGEXP", "RLIKE", "ESCAPE", "ANY", "SOME", "OVER", "PARTITION", "WINDOW",
+            "ROWS", "RANGE", "PRECEDING", "FOLLOWING", "UNBOUNDED", "CURRENT", "ROW", "INTERVAL", "COLLATE", "BINARY",
+            "DUAL", "INSERT", "INTO", "VALUES", "UPDATE", "SET", "DELETE", "REPLACE", "IGNORE", "DEFAULT"));
+
+    /**
+     * MariaDB's reserved words, an identifier named after one of these keeps its backticks
+     */
+    private static final Set<String> RESERVED = new HashSet<>(Arrays.asList(
+            "ACCESSIBLE", "ADD", "ALL", "ALTER", "ANALYZE", "AND", "AS", "ASC", "ASENSITIVE", "BEFORE", "BETWEEN",
+            "BIGINT", "BINARY", "BLOB", "BOTH", "BY", "CALL", "CASCADE", "CASE", "CHANGE", "CHAR", "CHARACTER", "CHECK",
+            "COLLATE", "COLUMN", "CONDITION", "CONSTRAINT", "CONTINUE", "CONVERT", "CREATE", "CROSS", "CURRENT_DATE",
+            "CURRENT_ROLE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "CURRENT_USER", "CURSOR", "DATABASE", "DATABASES",
+            "DAY_HOUR", "DAY_MICROSECOND", "DAY_MINUTE", "DAY_SECOND", "DEC", "DECIMAL", "DECLARE", "DEFAULT",
+            "DELAYED", "DELETE", "DESC", "DESCRIBE", "DETERMINISTIC", "DISTINCT", "DISTINCTROW", "DIV", "DOUBLE",
+            "DROP", "DUAL", "EACH", "ELSE", "ELSEIF", "ENCLOSED", "ESCAPED", "EXCEPT", "EXISTS", "EXIT", "EXPLAIN",
+            "FALSE", "FETCH", "FLOAT", "FLOAT4", "FLOAT8", "FOR", "FORCE", "FOREIGN", "FROM", "FULLTEXT", "GENERAL",
+            "GRANT", "GROUP", "HAVING", "HIGH_PRIORITY", "HOUR_MICROSECOND", "HOUR_MINUTE", "HOUR_SECOND", "IF",
+            "IGNORE", "IN", "INDEX", "INFILE", "INNER", "INOUT", "INSENSITIVE", "INSERT", "INT", "INT1", "INT2", "INT3",
+            "INT4", "INT8", "INTEGER", "INTERSECT", "INTERVAL", "INTO", "IS", "ITERATE", "JOIN", "KEY", "KEYS", "KILL",
+            "LEADING", "LEAVE", "LEFT", "LIKE", "LIMIT", "LINEAR", "LINES", "LOAD", "LOCALTIME", "LOCALTIMESTAMP",
+            "LOCK", "LONG", "LONGBLOB", "LONGTEXT", "LOOP", "LOW_PRIORITY", "MATCH", "MAXVALUE", "MEDIUMBLOB",
+            "MEDIUMINT", "MEDIUMTEXT", "MIDDLEINT", "MINUTE_MICROSECOND", "MINUTE_SECOND", "MOD", "MODIFIES", "NATURAL",
+            "NOT", "NO_WRITE_TO_BINLOG", "NULL", "NUMERIC", "OFFSET", "ON", "OPTIMIZE", "OPTION", "OPTIONALLY", "OR",
+            "ORDER", "OUT", "OUTER", "OUTFILE", "OVER", "PARTITION", "POSITION", "PRECISION", "PRIMARY", "PROCEDURE",
+            "PURGE", "RANGE", "READ", "READS", "READ_WRITE", "REAL", "RECURSIVE", "REFERENCES", "REGEXP", "RELEASE",
+            "RENAME", "REPEAT", "REPLACE", "REQUIRE", "RESIGNAL", "RESTRICT", "RETURN", "RETURNING", "REVOKE", "RIGHT",
+            "RLIKE", "ROWS", "SCHEMA", "SCHEMAS", "SECOND_MICROSECOND", "SELECT", "SENSITIVE", "SEPARATOR", "SET",
+            "SHOW", "SIGNAL", "SLOW", "SMALLINT", "SPATIAL", "SPECIFIC", "SQL", "SQLEXCEPTION", "SQLSTATE",
+            "SQLWARNING", "SQL_BIG_RESULT", "SQL_CALC_FOUND_ROWS", "SQL_SMALL_RESULT", "SSL", "STARTING",
+            "STRAIGHT_JOIN", "TABLE", "TERMINATED", "THEN", "TINYBLOB", "TINYINT", "TINYTEXT", "TO", "TRAILING",
+            "TRIGGER", "TRUE", "UNDO", "UNION", "UNIQUE", "UNLOCK", "UNSIGNED", "UPDATE", "USAGE", "USE", "USING",
+            "UTC_DATE", "UTC_TIME", "UTC_TIMESTAMP", "VALUES", "VARBINARY", "VARCHAR", "VARCHARACTER", "VARYING",
+            "WHEN", "WHERE", "WHILE", "WINDOW", "WITH", "WRITE", "XOR", "YEAR_MONTH", "ZEROFILL"));
+
+    private SQLCanonicalizer() {
+    }
+
+    /**
+     * Canonicalizes a statement
+     *
+     * @param sql to canonicalize
+     * @return the canonical tokens
+     */
+    public static List<SQLTokenizer.Token> canonicalize(String sql) {
+        return canonicalize(SQLTokenizer.tokenize(sql));
+    }
+
+    /**
+     * Canonicalizes the tokens of a statement
+     *
+     * @param tokens from SQLTokenizer
+     * @return the canonical tokens
+     */
+    public static List<SQLTokenizer.Token> canonicalize(List<SQLTokenizer.Token> tokens) {
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).isSymbol(";")) {
+            end--;
+        }
+        List<SQLTokenizer.Token> canonical = new ArrayList<>(end);
+        for (int i = 0; i < end; i++) {
+            SQLTokenizer.Token token = tokens.get(i);
+            switch (token.getType()) {
+                case WORD:
+                    canonical.add(KEYWORDS.contains(token.getText().toUpperCase()) || isFunctionCall(tokens, i, end)
+                            ? new SQLTokenizer.Token(token.getType(), token.getText().toUpperCase()) : token);
+                    break;
+                case STRING:
+                    canonical.add(new SQLTokenizer.Token(token.getType(), canonicalString(token.getText())));
+                    break;
+                case QUOTED_IDENTIFIER:
+                    canonical.add(canonicalIdentifier(token));
+                    break;
+                default:
+                    canonical.add(token);
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Gets the canonical form of a statement as a string
+     *
+     * @param sql to canonicalize
+     * @return the canonical tokens joined by single spaces
+     */
+    public static String canonicalSql(String sql) {
+        return toSql(canonicalize(sql));
+    }
+
+    /**
+     * Joins tokens back into SQL
+     *
+     * @param tokens to join
+     * @return the tokens joined by single spaces
+     */
+    public static String toSql(List<SQLTokenizer.Token> tokens) {
+        StringBuilder sql = new StringBuilder();
+        for (SQLTokenizer.Token token : tokens) {
+            sql.append(sql.length() == 0 ? "" : " ").append(token.getText());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Checks whether a word is the name of a function being called, function names are not case sensitive
+     *
+     * @param tokens of the statement
+     * @param i      index of the word
+     * @param end    index after the last token to look at
+     * @return true if the word is followed by a bracket and is not the table of an INSERT or REPLACE
+     */
+    private static boolean isFunctionCall(List<SQLTokenizer.Token> tokens, int i, int end) {
+        return i + 1 < end && tokens.get(i + 1).isSymbol("(") && (i == 0 || !tokens.get(i - 1).is("INTO"));
+    }
+
+    /**
+     * Rewrites a string literal with single quotes. Quotes are written doubled, any other backslash escape is kept as
+     * it was as its meaning can depend on where the string is used (\% in a LIKE pattern for example).
+     *
+     * @param literal the string as written, with its quotes
+     * @return the string in single quotes
+     */
+    static String canonicalString(String literal) {
+        char quote = literal.charAt(0);
+        boolean closed = literal.length() > 1 && literal.charAt(literal.length() - 1) == quote;
+        int end = closed ? literal.length() - 1 : literal.length();
+        StringBuilder canonical = new StringBuilder("'");
+        for (int i = 1; i < end; i++) {
+            char ch = literal.charAt(i);
+            if (ch == '\\' && i + 1 < end) {
+                char next = literal.charAt(++i);
+                if (next == '\'' || next == '"') {
+                    appendChar(canonical, next);
+                } else {
+                    canonical.append(ch).append(next);
+                }
+            } else if (ch == quote && i + 1 < end && literal.charAt(i + 1) == quote) {
+                appendChar(canonical, ch);
+                i++;
+            } else {
+                appendChar(canonical, ch);
+            }
+        }
+        return canonical.append(closed ? "'" : "").toString();
+    }
+
+    /**
+     * Adds a character of a string, doubling single quotes
+     *
+     * @param canonical string being written
+     * @param ch        to add
+     */
+    private static void appendChar(StringBuilder canonical, char ch) {
+        canonical.append(ch == '\'' ? "''" : String.valueOf(ch));
+    }
+
+    /**
+     * Removes the backticks from an identifier that means the same without them
+     *
+     * @param token the quoted identifier
+     * @return a word, or the token as it was if it needs its backticks
+     */
+    private static SQLTokenizer.Token canonicalIdentifier(SQLTokenizer.Token token) {
+        String text = token.getText();
+        if (text.length() < 3 || !text.endsWith("`")) {
+            return token;
+        }
+        String name = text.substring(1, text.length() - 1);
+        boolean digits = true;
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (!(ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch >= '0' && ch <= '9' || ch == '_'
+                    || ch == '$')) {
+                return token;
+            }
+            digits &= ch >= '0' && ch <= '9';
+        }
+        if (digits || Character.isDigit(name.charAt(0)) || KEYWORDS.contains(name.toUpperCase())
+                || RESERVED.contains(name.toUpperCase())) {
+            return token;
+        }
+        return new SQLTokenizer.Token(SQLTokenizer.TokenType.WORD, name);
+    }
+}
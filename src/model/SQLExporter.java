@@ -0,0 +1,259 @@
+package model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes tables as SQL, a CREATE TABLE followed by multi-row INSERTs, straight to a Writer. Rows are streamed from the
+ * server and written as they arrive, so the memory used does not depend on the size of the table.
+ * <p>
+ * Settings: sqlmark.export.batch rows per INSERT (default 500)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class SQLExporter {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Writer out;
+    private final int rowsPerInsert;
+
+    /**
+     * Creates an exporter with the configured number of rows per INSERT
+     *
+     * @param out to write to, should be buffered
+     */
+    public SQLExporter(Writer out) {
+        this(out, Config.getInt("sqlmark.export.batch", 500));
+    }
+
+    /**
+     * Creates an exporter
+     *
+     * @param out           to write to, should be buffered
+     * @param rowsPerInsert rows written in each INSERT statement
+     */
+    public SQLExporter(Writer out, int rowsPerInsert) {
+        this.out = out;
+        this.rowsPerInsert = Math.max(1, rowsPerInsert);
+    }
+
+    /**
+     * Writes the CREATE TABLE for a table and the rows a query selects from it
+     *
+     * @param db     connected to the database holding the table
+     * @param table  to export
+     * @param select query for the rows to export, all its columns must come from the table
+     * @return the number of rows written
+     * @throws Error if the table cannot be read or the output cannot be written
+     */
+    public long exportTable(Database db, String table, String select) throws Error {
+        writeCreate(db, table);
+        try (Statement statement = db.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            // Stream the rows instead of reading the whole result into memory first
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery(select)) {
+                return writeRows(table, rs);
+            }
+        } catch (SQLException e) {
+            throw new Error("Error exporting " + table, e);
+        }
+    }
+
+    /**
+     * Writes the CREATE TABLE statement for a table
+     *
+     * @param db    connected to the database holding the table
+     * @param table to write
+     * @throws Error if the table cannot be read or the output cannot be written
+     */
+    public void writeCreate(Database db, String table) throws Error {
+        try (Statement statement = db.getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SHOW CREATE TABLE " + quote(table))) {
+            while (rs.next()) {
+                out.write(rs.getString(2));
+                out.write(";\n\n");
+            }
+        } catch (SQLException | IOException e) {
+            throw new Error("Error exporting " + table, e);
+        }
+    }
+
+    /**
+     * Writes every remaining row of a result set as INSERTs into a table
+     *
+     * @param table the rows are inserted into
+     * @param rs    to read the rows from
+     * @return the number of rows written
+     * @throws Error if the rows cannot be read or the output cannot be written
+     */
+    public long writeRows(String table, ResultSet rs) throws Error {
+        try {
+            ResultSetMetaData meta = rs.getMetaData();
+            List<String> columns = new ArrayList<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnName(i));
+            }
+            String insert = insertFor(table, columns);
+            StringBuilder row = new StringBuilder();
+            long rows = 0;
+            while (rs.next()) {
+                row.setLength(0);
+                for (int i = 1; i <= columns.size(); i++) {
+                    row.append(i == 1 ? "(" : ", ");
+                    appendValue(row, rs.getObject(i));
+                }
+                writeRow(insert, rows++, row.append(')'));
+            }
+            finish(rows);
+            return rows;
+        } catch (SQLException | IOException e) {
+            throw new Error("Error exporting " + table, e);
+        }
+    }
+
+    /**
+     * Writes rows that are already in memory as INSERTs into a table
+     *
+     * @param table   the rows are inserted into
+     * @param columns names, in the order of the values in each row
+     * @param rows    to write
+     * @return the number of rows written
+     * @throws Error if the output cannot be written
+     */
+    public long writeRows(String table, List<String> columns, List<List<Object>> rows) throws Error {
+        try {
+            String insert = insertFor(table, columns);
+            StringBuilder row = new StringBuilder();
+            long count = 0;
+            for (List<Object> values : rows) {
+                row.setLength(0);
+                for (int i = 0; i < values.size(); i++) {
+                    row.append(i == 0 ? "(" : ", ");
+                    appendValue(row, values.get(i));
+                }
+                writeRow(insert, count++, row.append(')'));
+            }
+            finish(count);
+            return count;
+        } catch (IOException e) {
+            throw new Error("Error exporting " + table, e);
+        }
+    }
+
+    /**
+     * Creates the start of the INSERT statements for a table
+     *
+     * @param table   to insert into
+     * @param columns to insert
+     * @return the INSERT up to and including VALUES
+     */
+    private static String insertFor(String table, List<String> columns) {
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(quote(table)).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            insert.append(i == 0 ? "" : ", ").append(quote(columns.get(i)));
+        }
+        return insert.append(") VALUES\n").toString();
+    }
+
+    /**
+     * Writes one row, starting a new INSERT every rowsPerInsert rows
+     *
+     * @param insert the start of each INSERT
+     * @param index  of the row, from 0
+     * @param row    values in brackets
+     * @throws IOException if the output cannot be written
+     */
+    private void writeRow(String insert, long index, CharSequence row) throws IOException {
+        out.write(index % rowsPerInsert == 0 ? insert : ",\n");
+        out.append(row);
+        if ((index + 1) % rowsPerInsert == 0) {
+            out.write(";\n");
+        }
+    }
+
+    /**
+     * Ends the last INSERT
+     *
+     * @param rows written in total
+     * @throws IOException if the output cannot be written
+     */
+    private void finish(long rows) throws IOException {
+        if (rows % rowsPerInsert != 0) {
+            out.write(";\n");
+        }
+        out.write("\n");
+    }
+
+    /**
+     * Quotes an identifier with backticks
+     *
+     * @param identifier to quote
+     * @return the quoted identifier
+     */
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    /**
+     * Writes a value as a SQL literal
+     *
+     * @param sql   to append to
+     * @param value from a result set
+     */
+    static void appendValue(StringBuilder sql, Object value) {
+        if (value == null) {
+            sql.append("NULL");
+        } else if (value instanceof Boolean) {
+            sql.append((Boolean) value ? "1" : "0");
+        } else if (value instanceof BigDecimal) {
+            sql.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number) {
+            sql.append(value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            sql.append("X'");
+            for (byte b : bytes) {
+                sql.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            sql.append('\'');
+        } else if (value instanceof Date) {
+            sql.append('\'').append(value).append('\'');
+        } else {
+            sql.append('\'');
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                switch (ch) {
+                    case '\'':
+                        sql.append("\\'");
+                        break;
+                    case '\\':
+                        sql.append("\\\\");
+                        break;
+                    case '\n':
+                        sql.append("\\n");
+                        break;
+                    case '\r':
+                        sql.append("\\r");
+                        break;
+                    case '\0':
+                        sql.append("\\0");
+                        break;
+                    default:
+                        sql.append(ch);
+                }
+            }
+            sql.append('\'');
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classifies a SQL statement so Dataset can choose how to isolate it
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class SQLStatement {
+    private static final Set<String> TRANSACTIONAL_STARTS = new HashSet<>(Arrays.asList(
+            "SELECT", "WITH", "INSERT", "UPDATE", "DELETE", "REPLACE"));
+    /**
+     * Words that either commit implicitly or have effects a rollback cannot undo
+     */
+    private static final Set<String> NON_TRANSACTIONAL_WORDS = new HashSet<>(Arrays.asList(
+            "OUTFILE", "DUMPFILE", "COMMIT", "ROLLBACK", "SAVEPOINT", "NEXTVAL", "SETVAL", "LASTVAL",
+            "GET_LOCK", "RELEASE_LOCK", "RELEASE_ALL_LOCKS"));
+    /**
+     * Words that can come between INSERT, UPDATE, DELETE or REPLACE and the first table name
+     */
+    private static final Set<String> DML_MODIFIERS = new HashSet<>(Arrays.asList(
+            "LOW_PRIORITY", "DELAYED", "HIGH_PRIORITY", "QUICK", "IGNORE", "INTO"));
+    /**
+     * Words that can follow a table name in a list of table references without being its alias
+     */
+    private static final Set<String> NOT_ALIASES = new HashSet<>(Arrays.asList(
+            "ON", "USING", "WHERE", "SET", "FROM", "JOIN", "INNER", "LEFT", "RIGHT", "CROSS", "NATURAL", "OUTER",
+            "STRAIGHT_JOIN", "ORDER", "LIMIT", "PARTITION"));
+    /**
+     * Words that make a query's result depend on something other than the data, or give it a side effect, without
+     * being followed by brackets, so its result cannot be reused
+     */
+    private static final Set<String> NOT_CACHEABLE_WORDS = new HashSet<>(Arrays.asList(
+            "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "LOCALTIME", "LOCALTIMESTAMP", "UTC_DATE",
+            "UTC_TIME", "UTC_TIMESTAMP", "CURRENT_USER", "CURRENT_ROLE", "NEXT", "PREVIOUS", "INTO",
+            "INFORMATION_SCHEMA", "PERFORMANCE_SCHEMA", "MYSQL", "SYS"));
+    /**
+     * Built in functions whose result depends only on their arguments, any other function call (including stored
+     * functions) stops a query being cached
+     */
+    private static final Set<String> DETERMINISTIC_FUNCTIONS = new HashSet<>(Arrays.asList(
+            // Aggregate and window functions
+            "COUNT", "SUM", "AVG", "MIN", "MAX", "GROUP_CONCAT", "STD", "STDDEV", "STDDEV_POP", "STDDEV_SAMP",
+            "VARIANCE", "VAR_POP", "VAR_SAMP", "BIT_AND", "BIT_OR", "BIT_XOR", "ROW_NUMBER", "RANK", "DENSE_RANK",
+            "NTILE", "LAG", "LEAD", "FIRST_VALUE", "LAST_VALUE", "NTH_VALUE", "PERCENT_RANK", "CUME_DIST",
+            // Control flow and comparison
+            "IF", "IFNULL", "NULLIF", "COALESCE", "ISNULL", "GREATEST", "LEAST", "INTERVAL", "STRCMP",
+            // Strings
+            "CONCAT", "CONCAT_WS", "LENGTH", "CHAR_LENGTH", "CHARACTER_LENGTH", "OCTET_LENGTH", "BIT_LENGTH", "LOWER",
+            "UPPER", "LCASE", "UCASE", "SUBSTRING", "SUBSTR", "MID", "SUBSTRING_INDEX", "LEFT", "RIGHT", "TRIM",
+            "LTRIM", "RTRIM", "LPAD", "RPAD", "REPLACE", "REVERSE", "REPEAT", "SPACE", "INSTR", "LOCATE", "POSITION",
+            "ASCII", "ORD", "CHAR", "HEX", "UNHEX", "FORMAT", "INSERT", "FIELD", "FIND_IN_SET", "ELT", "MAKE_SET",
+            "SOUNDEX", "QUOTE", "REGEXP_REPLACE", "REGEXP_SUBSTR", "REGEXP_INSTR", "MD5", "SHA", "SHA1", "SHA2",
+            "CRC32", "TO_BASE64", "FROM_BASE64", "CAST", "CONVERT", "BINARY", "MATCH",
+            // Numbers
+            "ABS", "CEIL", "CEILING", "FLOOR", "ROUND", "TRUNCATE", "MOD", "POW", "POWER", "SQRT", "EXP", "LN", "LOG",
+            "LOG2", "LOG10", "SIGN", "PI", "SIN", "COS", "TAN", "ASIN", "ACOS", "ATAN", "ATAN2", "COT", "DEGREES",
+            "RADIANS", "CONV", "OCT", "BIN",
+            // Dates, given as arguments rather than read from the clock
+            "DATE", "TIME", "TIMESTAMP", "YEAR", "MONTH", "DAY", "DAYOFMONTH", "DAYOFWEEK", "DAYOFYEAR", "WEEKDAY",
+            "WEEK", "WEEKOFYEAR", "YEARWEEK", "QUARTER", "HOUR", "MINUTE", "SECOND", "MICROSECOND", "DAYNAME",
+            "MONTHNAME", "DATE_FORMAT", "TIME_FORMAT", "STR_TO_DATE", "DATEDIFF", "TIMEDIFF", "TIMESTAMPDIFF",
+            "TIMESTAMPADD", "DATE_ADD", "DATE_SUB", "ADDDATE", "SUBDATE", "ADDTIME", "SUBTIME", "EXTRACT", "LAST_DAY",
+            "MAKEDATE", "MAKETIME", "TO_DAYS", "FROM_DAYS", "TIME_TO_SEC", "SEC_TO_TIME", "PERIOD_ADD", "PERIOD_DIFF",
+            // JSON
+            "JSON_EXTRACT", "JSON_VALUE", "JSON_QUERY", "JSON_UNQUOTE", "JSON_OBJECT", "JSON_ARRAY", "JSON_LENGTH",
+            "JSON_CONTAINS", "JSON_KEYS", "JSON_ARRAYAGG", "JSON_OBJECTAGG"));
+    /**
+     * Keywords and type names that can be followed by an opening bracket without being a function call
+     */
+    private static final Set<String> BRACKETED_KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "FROM", "JOIN", "ON", "USING", "WHERE", "HAVING", "BY", "AS", "OVER", "IN", "EXISTS", "ANY",
+            "SOME", "ALL", "DISTINCT", "NOT", "AND", "OR", "XOR", "IS", "LIKE", "BETWEEN", "DIV", "CASE", "WHEN",
+            "THEN", "ELSE", "UNION", "INTERSECT", "EXCEPT", "WITH", "LATERAL", "VALUES", "ROW", "AGAINST", "INDEX",
+            "KEY", "PARTITION", "DECIMAL", "NUMERIC", "DOUBLE", "FLOAT", "VARCHAR", "NCHAR", "DATETIME", "SIGNED",
+            "UNSIGNED", "INTEGER", "INT"));
+
+    private final String sql;
+    private final List<SQLTokenizer.Token> tokens;
+    private final Type type;
+
+    /**
+     * How a statement can be isolated from the shared data
+     */
+    public enum Type {
+        /**
+         * A SELECT, nothing to undo
+         */
+        QUERY,
+        /**
+         * An INSERT, UPDATE, DELETE or REPLACE that a rollback undoes
+         */
+        DML,
+        /**
+         * DDL, multiple statements or anything else that commits implicitly, needs its own copy of the data
+         */
+        OTHER
+    }
+
+    /**
+     * Tokenizes and classifies the statement
+     *
+     * @param sql to classify
+     */
+    public SQLStatement(String sql) {
+        this.sql = sql;
+        this.tokens = SQLTokenizer.tokenize(sql);
+        this.type = classify();
+    }
+
+    /**
+     * Returns the statement
+     *
+     * @return the SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the tokens of the statement
+     *
+     * @return the tokens
+     */
+    public List<SQLTokenizer.Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the statement type
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether the statement can be run inside a transaction that is rolled back afterwards
+     *
+     * @return true for queries and DML
+     */
+    public boolean isTransactional() {
+        return type != Type.OTHER;
+    }
+
+    /**
+     * Checks whether the statement is a query that takes no locks, so it can share its data with other statements
+     *
+     * @return true for queries without FOR UPDATE or LOCK IN SHARE MODE
+     */
+    public boolean isReadOnly() {
+        return type == Type.QUERY && !isLocking();
+    }
+
+    /**
+     * Checks whether a query locks the rows it reads, with FOR UPDATE or LOCK IN SHARE MODE
+     *
+     * @return true if there is a locking clause
+     */
+    public boolean isLocking() {
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            if (tokens.get(i).is("FOR") && tokens.get(i + 1).is("UPDATE")
+                    || tokens.get(i).is("LOCK") && tokens.get(i + 1).is("IN")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the statement sorts its final result, an ORDER BY inside brackets (a subquery or window) does
+     * not count
+     *
+     * @return true if there is a top level ORDER BY
+     */
+    public boolean hasOrderBy() {
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            SQLTokenizer.Token token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0 && token.is("ORDER") && i + 1 < tokens.size() && tokens.get(i + 1).is("BY")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the statement is a query whose result depends only on the data, so running it again against the
+     * same data gives the same result and changes nothing. This has to be proved rather than assumed, so every
+     * function called must be a built in function known to depend only on its arguments. Queries that call anything
+     * else, use variables, the clock, sequences, the session or the system schemas, lock rows or hide SQL in an
+     * executable comment are not cacheable.
+     *
+     * @return true if the result can be cached
+     */
+    public boolean isCacheable() {
+        if (type != Type.QUERY || isLocking()) {
+            return false;
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            SQLTokenizer.Token token = tokens.get(i);
+            if (token.getType() == SQLTokenizer.TokenType.EXECUTABLE_COMMENT) {
+                return false;
+            }
+            boolean call = i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("(");
+            if (token.getType() == SQLTokenizer.TokenType.QUOTED_IDENTIFIER && call) {
+                return false;
+            }
+            if (token.getType() != SQLTokenizer.TokenType.WORD) {
+                continue;
+            }
+            String word = token.getText().toUpperCase();
+            if (word.startsWith("@") || NOT_CACHEABLE_WORDS.contains(word)) {
+                return false;
+            }
+            boolean qualified = i > 0 && tokens.get(i - 1).isSymbol(".");
+            if (call && (qualified || !DETERMINISTIC_FUNCTIONS.contains(word) && !BRACKETED_KEYWORDS.contains(word))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the statement in a normal form, so statements that MariaDB treats the same but that differ in whitespace,
+     * comments, keyword case, quote style or a trailing semicolon have the same normalized SQL
+     *
+     * @return the canonical tokens joined by single spaces
+     * @see SQLCanonicalizer
+     */
+    public String getNormalizedSql() {
+        return SQLCanonicalizer.toSql(SQLCanonicalizer.canonicalize(tokens));
+    }
+
+    /**
+     * Gets the select list of the outermost query exactly as it was written, from after SELECT up to FROM or the end
+     * of the statement. MariaDB heads an unaliased expression with its text as written, spacing included, so two
+     * queries can only be relied on to have the same column headings if their select lists are the same text.
+     *
+     * @return the select list, or the whole statement if it has no outermost SELECT
+     */
+    public String getSelectList() {
+        int depth = 0;
+        int start = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            SQLTokenizer.Token token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0 && start == -1 && token.is("SELECT")) {
+                start = i + 1;
+            } else if (depth == 0 && start != -1 && (token.is("FROM") || token.isSymbol(";"))) {
+                return sql.substring(tokens.get(start).getStart(), token.getStart()).trim();
+            }
+        }
+        if (start == -1 || start == tokens.size()) {
+            return sql;
+        }
+        return sql.substring(tokens.get(start).getStart()).trim();
+    }
+
+    /**
+     * Finds the tables a DML statement changes: the table of an INSERT or REPLACE, the tables listed before SET in an
+     * UPDATE and the tables rows are deleted from in a DELETE
+     *
+     * @return the table names without quotes, empty if the statement is not DML
+     */
+    public List<String> getTargetTables() {
+        List<String> tables = new ArrayList<>();
+        if (type != Type.DML) {
+            return tables;
+        }
+        int i = 0;
+        while (tokens.get(i).isSymbol("(")) {
+            i++;
+        }
+        String start = tokens.get(i).getText().toUpperCase();
+        i++;
+        while (i < tokens.size() && DML_MODIFIERS.contains(tokens.get(i).getText().toUpperCase())
+                && tokens.get(i).getType() == SQLTokenizer.TokenType.WORD) {
+            i++;
+        }
+        if (start.equals("INSERT") || start.equals("REPLACE")) {
+            if (i < tokens.size()) {
+                addTable(tableName(i), tables);
+            }
+        } else if (start.equals("UPDATE")) {
+            readTables(i, "SET", tables, new HashMap<>());
+        } else if (i < tokens.size() && tokens.get(i).is("FROM") && indexOf("USING", i) == -1) {
+            // DELETE FROM t
+            readTables(i + 1, "WHERE", tables, new HashMap<>());
+        } else {
+            // DELETE t1, t2 FROM ... or DELETE FROM t1, t2 USING ..., where the tables may be aliases
+            boolean using = tokens.get(i).is("FROM");
+            int references = indexOf(using ? "USING" : "FROM", using ? i + 1 : i);
+            List<String> names = new ArrayList<>();
+            Map<String, String> aliases = new HashMap<>();
+            readTables(using ? i + 1 : i, using ? "USING" : "FROM", names, new HashMap<>());
+            if (references != -1) {
+                readTables(references + 1, "WHERE", new ArrayList<>(), aliases);
+            }
+            for (String name : names) {
+                addTable(aliases.getOrDefault(name.toLowerCase(), name), tables);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Finds a word at the top level
+     *
+     * @param word to find
+     * @param from index to start at
+     * @return its index, -1 if it is not there
+     */
+    private int indexOf(String word, int from) {
+        int depth = 0;
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.get(i).isSymbol("(")) {
+                depth++;
+            } else if (tokens.get(i).isSymbol(")")) {
+                depth--;
+            } else if (depth == 0 && tokens.get(i).is(word)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the table names in a list of table references, the first name and any name after a comma or JOIN, until
+     * the given word or WHERE at the top level. The alias after each name is recorded as well.
+     *
+     * @param i       index of the first reference
+     * @param end     word that ends the list
+     * @param tables  to add the names to
+     * @param aliases to add each lower case alias and its table name to
+     */
+    private void readTables(int i, String end, List<String> tables, Map<String, String> aliases) {
+        int depth = 0;
+        boolean expectTable = true;
+        for (; i < tokens.size(); i++) {
+            SQLTokenizer.Token token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0) {
+                if (token.is(end) || token.is("WHERE") || token.isSymbol(";")) {
+                    return;
+                } else if (token.isSymbol(",") || token.is("JOIN")) {
+                    expectTable = true;
+                } else if (expectTable && isIdentifier(token)) {
+                    String table = tableName(i);
+                    addTable(table, tables);
+                    i = endOfName(i);
+                    int alias = i + 1 < tokens.size() && tokens.get(i + 1).is("AS") ? i + 2 : i + 1;
+                    if (alias < tokens.size() && isIdentifier(tokens.get(alias))
+                            && !NOT_ALIASES.contains(tokens.get(alias).getText().toUpperCase())) {
+                        aliases.put(unquote(tokens.get(alias)).toLowerCase(), table);
+                        i = alias;
+                    }
+                    expectTable = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a table name, which may be qualified with its database
+     *
+     * @param i index of the name
+     * @return the table name without its database or quotes
+     */
+    private String tableName(int i) {
+        return unquote(tokens.get(endOfName(i)));
+    }
+
+    /**
+     * Finds the last token of a name that may be qualified with its database
+     *
+     * @param i index of the name
+     * @return index of its last token
+     */
+    private int endOfName(int i) {
+        if (i + 2 < tokens.size() && tokens.get(i + 1).isSymbol(".") && isIdentifier(tokens.get(i + 2))) {
+            return i + 2;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether a token can be a table name or alias
+     *
+     * @param token to check
+     * @return true for words and quoted identifiers
+     */
+    private static boolean isIdentifier(SQLTokenizer.Token token) {
+        return token.getType() == SQLTokenizer.TokenType.WORD
+                || token.getType() == SQLTokenizer.TokenType.QUOTED_IDENTIFIER;
+    }
+
+    /**
+     * Removes the backticks around a quoted identifier
+     *
+     * @param token to read
+     * @return the identifier
+     */
+    private static String unquote(SQLTokenizer.Token token) {
+        String text = token.getText();
+        if (token.getType() == SQLTokenizer.TokenType.QUOTED_IDENTIFIER) {
+            return text.substring(1, text.length() - 1).replace("``", "`");
+        }
+        return text;
+    }
+
+    /**
+     * Adds a table name once
+     *
+     * @param table  name
+     * @param tables to add it to
+     */
+    private static void addTable(String table, List<String> tables) {
+        for (String existing : tables) {
+            if (existing.equalsIgnoreCase(table)) {
+                return;
+            }
+        }
+        tables.add(table);
+    }
+
+    /**
+     * Works out the statement type from its tokens
+     *
+     * @return the type
+     */
+    private Type classify() {
+        int first = 0;
+        while (first < tokens.size() && tokens.get(first).isSymbol("(")) {
+            first++;
+        }
+        if (first == tokens.size() || !TRANSACTIONAL_STARTS.contains(tokens.get(first).getText().toUpperCase())
+                || tokens.get(first).getType() != SQLTokenizer.TokenType.WORD) {
+            return Type.OTHER;
+        }
+        boolean ended = false;
+        for (SQLTokenizer.Token token : tokens) {
+            if (token.isSymbol(";")) {
+                ended = true;
+            } else if (ended) {
+                // More than one statement
+                return Type.OTHER;
+            } else if (token.getType() == SQLTokenizer.TokenType.EXECUTABLE_COMMENT) {
+                return Type.OTHER;
+            } else if (token.getType() == SQLTokenizer.TokenType.WORD
+                    && NON_TRANSACTIONAL_WORDS.contains(token.getText().toUpperCase())) {
+                return Type.OTHER;
+            }
+        }
+        String start = tokens.get(first).getText().toUpperCase();
+        return start.equals("SELECT") || start.equals("WITH") ? Type.QUERY : Type.DML;
+    }
+}
@@ -0,0 +1,201 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a SQL string into tokens, skipping whitespace and comments, so statements can be inspected without being
+ * fooled by keywords inside strings or comments
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class SQLTokenizer {
+
+    /**
+     * The kinds of token a statement is made of
+     */
+    public enum TokenType {
+        WORD, QUOTED_IDENTIFIER, STRING, NUMBER, SYMBOL, EXECUTABLE_COMMENT
+    }
+
+    /**
+     * A single token and its text as it appeared in the statement
+     */
+    public static class Token {
+        private final TokenType type;
+        private final String text;
+        private final int start;
+
+        /**
+         * Creates a token that was not read from a statement
+         *
+         * @param type of the token
+         * @param text of the token
+         */
+        public Token(TokenType type, String text) {
+            this(type, text, -1);
+        }
+
+        /**
+         * Creates a token
+         *
+         * @param type  of the token
+         * @param text  of the token
+         * @param start index of the token in the statement
+         */
+        public Token(TokenType type, String text, int start) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+        }
+
+        /**
+         * Returns the token type
+         *
+         * @return token type
+         */
+        public TokenType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the token text
+         *
+         * @return token text
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns where the token starts in the statement it was read from
+         *
+         * @return index of its first character, -1 if it was not read from a statement
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Checks whether this token is the given keyword, ignoring case
+         *
+         * @param keyword to check
+         * @return true if the token is an unquoted word matching the keyword
+         */
+        public boolean is(String keyword) {
+            return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+        }
+
+        /**
+         * Checks whether this token is the given symbol
+         *
+         * @param symbol to check
+         * @return true if the token is that symbol
+         */
+        public boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Splits the SQL into tokens. MariaDB executable comments (those opening with /*!) are kept as a single token as
+     * the server runs their contents.
+     *
+     * @param sql to split
+     * @return the tokens in order
+     */
+    public static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (ch == '#' || (ch == '-' && sql.startsWith("--", i)
+                    && (i + 2 == length || Character.isWhitespace(sql.charAt(i + 2))))) {
+                int end = sql.indexOf('\n', i);
+                i = end == -1 ? length : end + 1;
+            } else if (ch == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                end = end == -1 ? length : end + 2;
+                if (sql.startsWith("/*!", i) || sql.startsWith("/*M!", i)) {
+                    tokens.add(new Token(TokenType.EXECUTABLE_COMMENT, sql.substring(i, end), i));
+                }
+                i = end;
+            } else if (ch == '\'' || ch == '"') {
+                int end = endOfQuoted(sql, i, ch);
+                tokens.add(new Token(TokenType.STRING, sql.substring(i, end), i));
+                i = end;
+            } else if (ch == '`') {
+                int end = endOfQuoted(sql, i, ch);
+                tokens.add(new Token(TokenType.QUOTED_IDENTIFIER, sql.substring(i, end), i));
+                i = end;
+            } else if (Character.isDigit(ch) || (ch == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    end++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, sql.substring(i, end), i));
+                i = end;
+            } else if (Character.isLetter(ch) || ch == '_' || ch == '@' || ch == '$') {
+                int end = i + 1;
+                while (end < length && isWordPart(sql.charAt(end))) {
+                    end++;
+                }
+                tokens.add(new Token(TokenType.WORD, sql.substring(i, end), i));
+                i = end;
+            } else {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(ch), i));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Finds the end of a quoted string or identifier, allowing for doubled quotes and backslash escapes
+     *
+     * @param sql   being split
+     * @param start index of the opening quote
+     * @param quote the quote character
+     * @return the index after the closing quote
+     */
+    private static int endOfQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char ch = sql.charAt(i);
+            if (ch == '\\' && quote != '`') {
+                i += 2;
+            } else if (ch == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    /**
+     * Checks whether a character can continue an unquoted word
+     *
+     * @param ch to check
+     * @return true if it is part of a word
+     */
+    private static boolean isWordPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '@';
+    }
+}
@@ -0,0 +1,270 @@
+package model;
+
+import org.apache.commons.lang3.RandomStringUtils;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fixed set of pre-cloned copies of data_store that student SQL is run against.
+ * A sandbox is leased out, and if the statement run on it may have changed it, it is re-cloned on a background thread
+ * before it is handed out again, so grading never waits for a copy of the data to be made. A sandbox whose changes were
+ * rolled back goes straight back to the pool. There is one reset thread per sandbox, so re-cloning keeps up with
+ * releases.
+ * There is also one shared copy that any number of threads can use at once, for read-only queries that are run inside
+ * a transaction and rolled back. Statements that take locks lease a sandbox so they cannot block each other.
+ * <p>
+ * Sandboxes are re-cloned when the DataVersion changes.
+ * Settings: sqlmark.sandbox.size (default 4), sqlmark.sandbox.timeout in seconds (default 60) and
+ * sqlmark.sandbox.prefix (default data_store_sandbox_ followed by a random tag for this process)
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class SandboxPool {
+    private static SandboxPool instance;
+
+    private final String[] names;
+    private final BlockingQueue<String> available;
+    private final Map<String, Integer> generations;
+    private final AtomicInteger generation;
+    private final ExecutorService resetter;
+    private final long timeout;
+    private final String sharedName;
+    private final ReentrantReadWriteLock sharedLock;
+    private volatile int sharedGeneration;
+    private volatile int dataVersion;
+
+    /**
+     * Gets the pool for this process, creating it on first use
+     *
+     * @return the sandbox pool
+     */
+    public static synchronized SandboxPool getInstance() {
+        if (instance == null) {
+            String prefix = Config.getString("sqlmark.sandbox.prefix",
+                    "data_store_sandbox_" + RandomStringUtils.randomAlphabetic(6).toLowerCase() + "_");
+            instance = new SandboxPool(prefix,
+                    Config.getInt("sqlmark.sandbox.size", 4),
+                    Config.getLong("sqlmark.sandbox.timeout", 60));
+            Metrics.getInstance().gauge("sandbox_available", instance::getAvailable);
+            Metrics.getInstance().gauge("sandbox_size", instance::getSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the pool and starts cloning the sandboxes in the background
+     *
+     * @param prefix  of the sandbox database names
+     * @param size    number of sandboxes
+     * @param timeout seconds to wait for a free sandbox
+     */
+    private SandboxPool(String prefix, int size, long timeout) {
+        this.names = new String[Math.max(1, size)];
+        this.available = new LinkedBlockingQueue<>();
+        this.generations = new ConcurrentHashMap<>();
+        this.generation = new AtomicInteger();
+        this.timeout = timeout;
+        this.sharedName = prefix + "shared";
+        this.sharedLock = new ReentrantReadWriteLock();
+        this.sharedGeneration = -1;
+        this.dataVersion = -1;
+        AtomicInteger threads = new AtomicInteger();
+        this.resetter = Executors.newFixedThreadPool(names.length, runnable -> {
+            Thread thread = new Thread(runnable, "sandbox-reset-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < names.length; i++) {
+            names[i] = prefix + (i + 1);
+            generations.put(names[i], -1);
+            reset(names[i]);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::dropAll));
+    }
+
+    /**
+     * Leases a sandbox, waiting for one to become free if they are all in use
+     *
+     * @return the name of the sandbox database
+     * @throws Error if no sandbox becomes free in time, or an out of date sandbox cannot be refreshed
+     */
+    public String lease() throws Error {
+        checkVersion();
+        String name;
+        try {
+            name = available.poll(timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Error("Interrupted waiting for a sandbox", e);
+        }
+        if (name == null) {
+            throw new Error("No sandbox database became free in " + timeout + " seconds");
+        }
+        if (generations.get(name) != generation.get()) {
+            try {
+                refresh(name);
+            } catch (Error e) {
+                available.offer(name);
+                throw e;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Returns a sandbox to the pool, re-cloning it in the background first if it was changed. One that was not changed
+     * can be leased again straight away.
+     *
+     * @param name    of the sandbox that was leased
+     * @param changed whether its data may differ from data_store, false only after a successful rollback
+     */
+    public void release(String name, boolean changed) {
+        if (changed) {
+            generations.put(name, -1);
+            reset(name);
+        } else {
+            available.offer(name);
+        }
+    }
+
+    /**
+     * Gets the shared sandbox, which must only be used for read-only queries inside a transaction that is rolled back.
+     * The shared copy is (re)cloned first if it is out of date, and cannot be re-cloned again until every thread that
+     * acquired it has called releaseShared().
+     *
+     * @return the name of the shared sandbox database
+     * @throws Error if the shared copy cannot be cloned
+     */
+    public String acquireShared() throws Error {
+        checkVersion();
+        sharedLock.readLock().lock();
+        if (sharedGeneration != generation.get()) {
+            sharedLock.readLock().unlock();
+            sharedLock.writeLock().lock();
+            try {
+                if (sharedGeneration != generation.get()) {
+                    int current = generation.get();
+                    Database db = new Database("");
+                    try {
+                        db.cloneDB(sharedName);
+                    } finally {
+                        db.close();
+                    }
+                    sharedGeneration = current;
+                }
+                sharedLock.readLock().lock();
+            } finally {
+                sharedLock.writeLock().unlock();
+            }
+        }
+        return sharedName;
+    }
+
+    /**
+     * Releases the shared sandbox, must be called by the thread that acquired it
+     */
+    public void releaseShared() {
+        sharedLock.readLock().unlock();
+    }
+
+    /**
+     * Marks every sandbox as out of date, they are re-cloned when next leased
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the sandboxes if the DataVersion has moved on since they were cloned
+     */
+    private void checkVersion() {
+        try {
+            int version = DataVersion.current();
+            if (version != dataVersion) {
+                dataVersion = version;
+                invalidate();
+            }
+        } catch (Error e) {
+            // Keep using the sandboxes as they are, the version is checked again on the next lease
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the number of sandboxes
+     *
+     * @return the pool size
+     */
+    public int getSize() {
+        return names.length;
+    }
+
+    /**
+     * Gets the number of sandboxes ready to be leased
+     *
+     * @return free sandboxes
+     */
+    public int getAvailable() {
+        return available.size();
+    }
+
+    /**
+     * Re-clones a sandbox on a background thread and then makes it available.
+     * If the clone fails the sandbox is still made available, and is cloned again when it is leased.
+     *
+     * @param name of the sandbox
+     */
+    private void reset(String name) {
+        resetter.execute(() -> {
+            try {
+                refresh(name);
+            } catch (Error e) {
+                e.printStackTrace();
+            }
+            available.offer(name);
+        });
+    }
+
+    /**
+     * Re-clones a sandbox from data_store
+     *
+     * @param name of the sandbox
+     * @throws Error if the clone fails
+     */
+    private void refresh(String name) throws Error {
+        int current = generation.get();
+        Database db = new Database("");
+        try {
+            db.cloneDB(name);
+            generations.put(name, current);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Drops every sandbox database, run when the application exits
+     */
+    private void dropAll() {
+        resetter.shutdownNow();
+        try {
+            Database db = new Database("");
+            for (String name : names) {
+                db.deleteDB(name);
+            }
+            db.deleteDB(sharedName);
+            db.close();
+        } catch (Error e) {
+            e.printStackTrace();
+        }
+    }
+}
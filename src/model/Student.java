@@ -66,9 +66,10 @@ public class Student {
         db.prepareSelect("student_submissions", Map.of("student_num", studentNum));
         db.execute();
         rs = db.getResultSet();
+        List<Integer> submissionIDs = new ArrayList<>();
         try {
             while (rs.next()) {
-                submissions.add(new Submission(assignment, rs.getInt("submission_id")));
+                submissionIDs.add(rs.getInt("submission_id"));
             }
         } catch (SQLException e) {
             db.closeRS();
@@ -76,8 +77,12 @@ public class Student {
             throw (new Error("Submission load error!", e));
         }
         db.closeRS();
-
         db.close();
+
+        // Loaded once the connection is returned, so a login only ever holds one connection
+        for (int submissionID : submissionIDs) {
+            submissions.add(new Submission(assignment, submissionID));
+        }
     }
 
     /**
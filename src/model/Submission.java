@@ -1,10 +1,14 @@
 package model;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Tracks submissions for assignments
@@ -13,42 +17,87 @@ import java.util.*;
  */
 public class Submission {
     private final Assignment assignment;
-    private List<Answer> answers;
+    private List<CompletableFuture<Answer>> answers;
     private int currentQuestion;
     private Date date;
     private int submissionID;
+
+    /**
+     * Loads a saved submission. The saved marks and compile messages are the record of the submission and are used as
+     * they are, so nothing is run. An answer saved without a mark counts as 0. Use isStale() to check whether the data
+     * has changed since the submission was marked, and regrade() to see how it would be marked now.
+     * @param assignment the submission was for
+     * @param submissionID of the saved submission
+     * @throws Error if the submission cannot be loaded
+     */
     public Submission(Assignment assignment, int submissionID) throws Error {
         this(assignment);
         this.submissionID = submissionID;
 
         Database db = new Database("admin_data");
-
-        db.prepareSelect("student_answers", Map.of("submission_id", submissionID));
-        db.execute();
-        ResultSet rs = db.getResultSet();
-        try {
-            while (rs.next()) {
-                answers.add(new Answer(rs.getString("answer"), assignment.getQuestion(rs.getInt("question_num")-1)));
+        try (PreparedStatement select = db.getConnection().prepareStatement("SELECT question_num, answer, mark, "
+                + "compile_message, data_version FROM student_answers WHERE submission_id = ? "
+                + "ORDER BY question_num;")) {
+            select.setInt(1, submissionID);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Question question = assignment.getQuestion(rs.getInt("question_num")-1);
+                    Object savedVersion = rs.getObject("data_version");
+                    answers.add(CompletableFuture.completedFuture(new Answer(rs.getString("answer"), question,
+                            rs.getInt("mark"), rs.getString("compile_message"),
+                            savedVersion == null ? -1 : ((Number) savedVersion).intValue())));
+                }
             }
         } catch (SQLException e) {
-            db.closeRS();
-            db.close();
             throw (new Error("Submission load error!", e));
+        } finally {
+            db.close();
         }
-        db.closeRS();
+    }
 
-        db.close();
+    /**
+     * Checks whether any answer was marked against data that has changed since, its saved mark may then differ from
+     * the mark it would get now
+     * @return true if an answer was marked against an older DataVersion
+     * @throws Error if the data version cannot be read, or an answer could not be graded
+     */
+    public boolean isStale() throws Error {
+        int version = DataVersion.current();
+        for (Answer answer : getAnswers()) {
+            if (answer.getDataVersion() != version) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * returns the total mark for the student's submission
+     * Grades the answers again against the current data on the GradingEngine. The saved submission is the record and
+     * is left as it is, the new marks are only in the submission returned.
+     * @param studentNum of the student who made the submission
+     * @return a new submission that is not saved, its answers are graded in the background
+     * @throws Error if an answer of this submission could not be graded
+     */
+    public Submission regrade(String studentNum) throws Error {
+        Submission regraded = new Submission(assignment);
+        regraded.date = date;
+        regraded.submissionID = submissionID;
+        for (Answer answer : getAnswers()) {
+            regraded.addAnswer(GradingEngine.getInstance().submit(studentNum,
+                    assignment.getQuestion(answer.getQuestionNum()-1), answer.getAnswerText()));
+        }
+        return regraded;
+    }
+
+    /**
+     * returns the total mark for the student's submission, waiting for any answers still being graded
      * @return total mark
-     * @throws Error if assignment not completed
+     * @throws Error if assignment not completed, or an answer could not be graded
      */
     public int getTotalMark() throws Error {
         if (checkComplete()) {
             int totalMark = 0;
-            for (Answer answer : answers) {
+            for (Answer answer : getAnswers()) {
                 totalMark += answer.getMark();
             }
             return totalMark;
@@ -58,14 +107,14 @@ public class Submission {
     }
 
     /**
-     * Gets the feedback for the entire submissions
+     * Gets the feedback for the entire submissions, waiting for any answers still being graded
      * @return feedback
-     * @throws Error if assignment not completed
+     * @throws Error if assignment not completed, or an answer could not be graded
      */
     public String getFeedback() throws Error {
         if (checkComplete()) {
             StringBuilder feedback = new StringBuilder();
-            for (Answer answer : answers) {
+            for (Answer answer : getAnswers()) {
                 feedback.append("Question ")
                         .append(answer.getQuestionNum())
                         .append(":\n");
@@ -86,6 +135,64 @@ public class Submission {
         }
     }
 
+    /**
+     * Gets every row of the output of the answers that were not fully right, for the questions that give verbose
+     * feedback. Answers are run again the first time this is called, so it should not be called on the JavaFX
+     * Application Thread.
+     * @return the full output of each answer
+     * @throws Error if assignment not completed, or an answer could not be graded
+     */
+    public String getFullOutput() throws Error {
+        if (checkComplete()) {
+            StringBuilder output = new StringBuilder();
+            for (Answer answer : getAnswers()) {
+                if (answer.getMark() != 2 && answer.hasOutputFeedback()) {
+                    output.append("Question ")
+                            .append(answer.getQuestionNum())
+                            .append(" output:\n")
+                            .append(answer.getFullOutput())
+                            .append("\n");
+                }
+            }
+            return output.toString();
+        } else {
+            throw new Error("Assignment not complete!");
+        }
+    }
+
+    /**
+     * Waits for every answer to be graded
+     * @return the graded answers, in question order
+     * @throws Error if an answer could not be graded
+     */
+    private List<Answer> getAnswers() throws Error {
+        List<Answer> graded = new ArrayList<>();
+        for (CompletableFuture<Answer> answer : answers) {
+            try {
+                graded.add(answer.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Error ? (Error) e.getCause() : new Error(e.getCause());
+            }
+        }
+        return graded;
+    }
+
+    /**
+     * Gets a future that completes once every answer added so far has been graded
+     * @return the future
+     */
+    public CompletableFuture<Void> whenGraded() {
+        return CompletableFuture.allOf(answers.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Gets the id the submission was saved with
+     * @return the submission_id, 0 if it has not been saved
+     */
+    public int getSubmissionID() {
+        return submissionID;
+    }
+
     /**
      * Checks whether the assignment has been completed
      * @return true or false
@@ -123,6 +230,15 @@ public class Submission {
      * @throws ArrayIndexOutOfBoundsException if there are too many answers
      */
     public void addAnswer(Answer answer) throws ArrayIndexOutOfBoundsException {
+        addAnswer(CompletableFuture.completedFuture(answer));
+    }
+
+    /**
+     * Adds an answer that is still being graded, see GradingEngine
+     * @param answer to be added
+     * @throws ArrayIndexOutOfBoundsException if there are too many answers
+     */
+    public void addAnswer(CompletableFuture<Answer> answer) throws ArrayIndexOutOfBoundsException {
         if (!checkComplete()) {
             answers.add(answer);
             currentQuestion++;
@@ -132,54 +248,67 @@ public class Submission {
     }
 
     /**
-     * Submits the student's submission and saves it to the db
+     * Submits the student's submission and saves it to the db. The submission and all of its answers are saved in one
+     * transaction, the answers as a single batch, so saving takes the same time however many times the student has
+     * submitted before.
      * @param  studentNum to submit
      * @return the current submission
      * @throws Error if it cannot save submission
      */
     public Submission submit(String studentNum) throws Error{
+        List<Answer> graded = getAnswers();
 
         Database db = new Database("admin_data");
-        DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-        List<String> row = new ArrayList<String>();
+        long start = System.nanoTime();
         this.date = new Date();
-        List<String> columns = new ArrayList<>();
-        columns.add("student_num");
-        columns.add("submission_date");
-        row.add(studentNum);
-        row.add(dateFormat.format(this.date));
-        String tableName = "student_submissions";
-        db.prepareInsert(tableName,columns,row);
-        db.execute();
-        columns.clear();
-
-        if(submissionID==0) {
-            db.prepareSelect("student_submissions", Map.of("student_num", studentNum));
-            db.execute();
-            ResultSet rs = db.getResultSet();
-
-            try {
-                while (rs.next()) {
-                    submissionID= rs.getInt("submission_id");//gets the latest submissionID for current student
+        Connection connection = db.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO student_submissions (student_num, submission_date) VALUES (?, ?);",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                insert.setString(1, studentNum);
+                insert.setTimestamp(2, new Timestamp(date.getTime()));
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new Error("No submission_id was generated for " + studentNum);
+                    }
+                    submissionID = keys.getInt(1);
                 }
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO student_answers (submission_id, "
+                    + "question_num, answer, mark, compile_message, data_version) VALUES (?, ?, ?, ?, ?, ?);")) {
+                for (int i = 0; i < assignment.getTotalQuestions(); i++) {
+                    Answer answer = graded.get(i);
+                    insert.setInt(1, submissionID);
+                    insert.setInt(2, assignment.getQuestion(i).getQuestionNum());
+                    insert.setString(3, answer.getAnswerText());
+                    insert.setInt(4, answer.getMark());
+                    insert.setString(5, answer.getCompileMessage());
+                    insert.setInt(6, answer.getDataVersion());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException | Error e) {
+            // The generated submission_id was rolled back with the rest, so the submission is not saved
+            submissionID = 0;
+            try {
+                connection.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e instanceof Error ? (Error) e : new Error("Couldn't save submission for " + studentNum, e);
+        } finally {
+            Metrics.getInstance().recordSince("save", start);
+            try {
+                connection.setAutoCommit(true);
             } catch (SQLException e) {
-                db.closeRS();
-                db.close();
-                throw (new Error("Submission load error!", e));
+                e.printStackTrace();
             }
-            db.closeRS();
-        }
-        columns = Arrays.asList("submission_id","question_num","answer","mark");
-        tableName = "student_answers";
-        for(int i = 0; i< assignment.getTotalQuestions();i++){
-            List<String> saveSubmission = new ArrayList<>();
-            saveSubmission.add(submissionID+"");
-            saveSubmission.add(assignment.getQuestion(i).getQuestionNum()+"");
-            saveSubmission.add(answers.get(i).getAnswerText());
-            saveSubmission.add(answers.get(i).getMark()+"");
-            db.prepareInsert(tableName,columns,saveSubmission);
-            db.execute();
-            saveSubmission.clear();
+            db.close();
         }
         return this;
     }
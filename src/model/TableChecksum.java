@@ -0,0 +1,106 @@
+package model;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The state of a table after a DML statement, as a row count and a checksum worked out by the server. Each row is
+ * hashed with MD5 over its quoted values and the hashes are summed, so the checksum does not depend on row order and
+ * a duplicated row changes it. Only the two numbers are sent back, the rows never leave the database.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class TableChecksum {
+    private final String table;
+    private final long rows;
+    private final String checksum;
+
+    /**
+     * Creates a checksum
+     *
+     * @param table    the checksum is for
+     * @param rows     in the table
+     * @param checksum of the rows
+     */
+    public TableChecksum(String table, long rows, String checksum) {
+        this.table = table;
+        this.rows = rows;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Works out the checksum of a table as the connection sees it, so changes made in an open transaction count
+     *
+     * @param db    connected to the database holding the table
+     * @param table name
+     * @param limits on how long the checksum can take, null for none
+     * @return the checksum
+     * @throws Error if the table cannot be read
+     */
+    public static TableChecksum capture(Database db, String table, ExecutionLimits limits) throws Error {
+        String quoted = "`" + table.replace("`", "``") + "`";
+        try (Statement statement = db.getConnection().createStatement()) {
+            if (limits != null) {
+                statement.setQueryTimeout(limits.getTimeoutSeconds());
+            }
+            StringBuilder values = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery("SELECT * FROM " + quoted + " LIMIT 0")) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    values.append(i == 1 ? "" : ", ")
+                            .append("QUOTE(`").append(metaData.getColumnName(i).replace("`", "``")).append("`)");
+                }
+            }
+            String sql = "SELECT COUNT(*), COALESCE(SUM(CAST(CONV(LEFT(MD5(CONCAT_WS(',', " + values
+                    + ")), 16), 16, 10) AS UNSIGNED)), 0) FROM " + quoted;
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                rs.next();
+                return new TableChecksum(table, rs.getLong(1), rs.getString(2));
+            }
+        } catch (SQLException e) {
+            throw new Error("Couldn't checksum table " + table, e);
+        }
+    }
+
+    /**
+     * @return the table name
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the number of rows in the table
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the checksum of the rows
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Checks whether another checksum is for the same table in the same state, table names are not case sensitive
+     *
+     * @param other checksum to compare with
+     * @return true if the tables match
+     */
+    public boolean matches(TableChecksum other) {
+        return table.equalsIgnoreCase(other.table) && rows == other.rows && checksum.equals(other.checksum);
+    }
+
+    /**
+     * @return the table, row count and checksum
+     */
+    @Override
+    public String toString() {
+        return table + " (" + rows + " rows, checksum " + checksum + ")";
+    }
+}
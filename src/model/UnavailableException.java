@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Thrown when SQL could not be run at all because no sandbox or database connection could be had, or a sandbox could
+ * not be cloned. This says nothing about the SQL itself, so it must not be graded as a statement that failed.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+public class UnavailableException extends RuntimeException {
+    /**
+     * Creates the exception
+     *
+     * @param cause the error from the pool or the database
+     */
+    public UnavailableException(Error cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,7 +20,9 @@ public class WorkingData {
      */
     public static List<String> getTables() throws Error {
         Database db = new Database("data_store");
-        return db.getAllTables();
+        List<String> tables = db.getAllTables();
+        db.close();
+        return tables;
     }
 
     /**
@@ -40,6 +43,7 @@ public class WorkingData {
                 students.add(new Student(rs.getString("student_num")));
             }
         } catch (Exception e) {
+            db.close();
             throw new Error("Cannot add students", e.getCause());
         }
 
@@ -49,6 +53,29 @@ public class WorkingData {
         return students;
     }
 
+    /**
+     * Gets the student numbers from the students table, without loading their submissions
+     *
+     * @return a list of student numbers
+     * @throws Error if the query doesn't work
+     */
+    public static List<String> getStudentNumbers() throws Error {
+        Database db = new Database("admin_data");
+        List<String> studentNums = new ArrayList<>();
+        try {
+            db.execute("SELECT student_num FROM students;");
+            ResultSet rs = db.getResultSet();
+            while (rs.next()) {
+                studentNums.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new Error("Cannot read student numbers", e);
+        } finally {
+            db.close();
+        }
+        return studentNums;
+    }
+
     /**
      * Gets all the questions in the question database
      *
@@ -85,6 +112,7 @@ public class WorkingData {
                 questions.add(question);
             }
         } catch (Exception e) {
+            db.close();
             throw new Error("Can't create assignment", e);
         }
         db.closeRS();
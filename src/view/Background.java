@@ -0,0 +1,50 @@
+package view;
+
+import javafx.concurrent.Task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs work that talks to the database off the JavaFX Application Thread, so the window keeps responding while
+ * answers are graded or feedback is loaded. The result is handed back on the JavaFX Application Thread.
+ *
+ * @author agent
+ * @version 18/10/2026
+ */
+class Background {
+    private static final AtomicInteger count = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ui-background-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Background() {
+    }
+
+    /**
+     * Runs work as a Task on a background thread
+     *
+     * @param work      to run, may block
+     * @param onSuccess given the result on the JavaFX Application Thread
+     * @param onFailure given what the work threw on the JavaFX Application Thread
+     * @param <T>       type of the result
+     * @return the task, which can be cancelled
+     */
+    static <T> Task<T> run(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        task.setOnSucceeded(event -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(event -> onFailure.accept(task.getException()));
+        executor.execute(task);
+        return task;
+    }
+}
@@ -1,7 +1,10 @@
 package view;
 
 import model.Error;
+import model.ImportReport;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -74,6 +77,7 @@ public class Lecturer {
         System.out.println("How many data files are there?");
         int numFiles = sc.nextInt();
         lecturer.clearAll();
+        List<String> filenames = new ArrayList<>();
         for(int i = 1; i <= numFiles; i++){
             System.out.println("Enter data file "+i+":");
             String filename = sc.nextLine();
@@ -81,10 +85,29 @@ public class Lecturer {
                 //TODO figure out why I have to do this
                 filename = sc.nextLine();
             }
-            lecturer.loadData(filename);
-            System.out.println("Data file "+i+" loaded successfully");
+            filenames.add(filename);
+        }
+        List<String> skipped = new ArrayList<>();
+        while(!filenames.isEmpty()){
+            System.out.println("Loading "+filenames.size()+" data file(s)...");
+            ImportReport report = lecturer.loadDataParallel(filenames);
+            System.out.println(report);
+            filenames.clear();
+            for(ImportReport.FileResult failure : report.getFailures()){
+                System.out.println("Enter a corrected filename for "+failure.getFilename()+" (blank to skip):");
+                String filename = sc.nextLine();
+                if(!filename.equals("")){
+                    filenames.add(filename);
+                }else{
+                    skipped.add(failure.getFilename());
+                }
+            }
+        }
+        if(skipped.isEmpty()){
+            System.out.println("All data files loaded successfully!");
+        }else{
+            System.out.println("Data files loaded, except for these skipped files: "+String.join(", ", skipped));
         }
-        System.out.println("All data files loaded successfully!");
         System.out.println("Enter the students filename:");
         String studentFile = sc.nextLine();
         lecturer.loadStudents(studentFile);
@@ -93,6 +116,8 @@ public class Lecturer {
         String qnaFile = sc.nextLine();
         lecturer.loadQuestions(qnaFile);
         System.out.println("Successful");
+        System.out.println("Preparing student data downloads in the background...");
+        lecturer.prepareDownloads().thenRun(() -> System.out.println("Student data downloads ready"));
     }
 
     /**
@@ -106,7 +131,9 @@ public class Lecturer {
             //TODO figure out why I have to do this
             filename = sc.nextLine();
         }
-        lecturer.exportStudents(filename);
+        System.out.println("Include the best mark for each question? (y/n)");
+        boolean perQuestion = sc.nextLine().trim().toLowerCase().startsWith("y");
+        lecturer.exportStudents(filename, perQuestion);
     }
 
     /**
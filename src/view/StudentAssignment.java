@@ -1,6 +1,7 @@
 package view;
 
 import controller.Student;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -8,10 +9,14 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import model.Answer;
 import model.Error;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class StudentAssignment {
     private Student student;
@@ -28,6 +33,9 @@ public class StudentAssignment {
     @FXML
     private Button btnSubmitAnswer;
 
+    @FXML
+    private TextArea txaFeedback;
+
     @FXML
     private Label lblStudentNum;
 
@@ -53,11 +61,22 @@ public class StudentAssignment {
 
     @FXML
     void downloadData(ActionEvent event) {
-        try {
-            student.getData(btnDownloadData.getScene().getWindow());
-        } catch (Error error) {
-            Alert a = createAlert("Problem creating file", error, Alert.AlertType.ERROR);
+        File file = student.chooseDataFile(btnDownloadData.getScene().getWindow());
+        if (file == null) {
+            return;
         }
+        btnDownloadData.setDisable(true);
+        // The data pack may have to be generated first, which reads from the database
+        Background.run(() -> {
+                    student.saveData(file);
+                    return file;
+                },
+                saved -> btnDownloadData.setDisable(false),
+                error -> {
+                    btnDownloadData.setDisable(false);
+                    createAlert("Problem creating file",
+                            error instanceof Error ? (Error) error : new Error(error), Alert.AlertType.ERROR).show();
+                });
     }
 
     @FXML
@@ -71,10 +90,39 @@ public class StudentAssignment {
 
     @FXML
     void submitAnswer(ActionEvent event) {
-        student.answerQuestion(txaAnswer.getText());
+        if (student.getNextQuestion() == null) {
+            // Every question was answered but saving failed, so try again
+            finishAssignment();
+            return;
+        }
+        CompletableFuture<Answer> graded = student.answerQuestion(txaAnswer.getText());
+        // Feedback is added to the pane as each answer is graded, the next question is shown straight away
+        graded.whenComplete((answer, error) -> {
+            String feedback = error == null ? describe(answer)
+                    : "An answer could not be graded: " + causeOf(error).getMessage() + "\n\n";
+            Platform.runLater(() -> txaFeedback.appendText(feedback));
+        });
         showNextQuestion();
     }
 
+    private String describe(Answer answer) {
+        StringBuilder feedback = new StringBuilder("Question ")
+                .append(answer.getQuestionNum())
+                .append(": ")
+                .append(answer.getMark())
+                .append("/2\n");
+        if (answer.getMark() == 2) {
+            feedback.append("100% Well Done!\n\n");
+        } else {
+            feedback.append(answer.getFeedback()).append("\n\n");
+        }
+        return feedback.toString();
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     private void showNextQuestion() {
         String question;
         if ((question = student.getNextQuestion()) != null) {
@@ -86,9 +134,26 @@ public class StudentAssignment {
     }
 
     private void finishAssignment() {
-        try {
-            createAlert("Complete!", "Your mark: " + student.getMark(), null, Alert.AlertType.INFORMATION);
+        btnSubmitAnswer.setDisable(true);
+        txaAnswer.setDisable(true);
+        lblQuestion.setText("All questions answered, waiting for the last answers to be graded...");
+        Background.run(() -> {
+            student.whenGraded().join();
+            int mark = student.getMark();
             student.submitAssignment();
+            return mark;
+        }, this::showResult, error -> {
+            Throwable cause = causeOf(error);
+            lblQuestion.setText("Your answers could not be submitted, press Submit answer to try again");
+            btnSubmitAnswer.setDisable(false);
+            createAlert("Problem finishing assignment", cause instanceof Error ? (Error) cause : new Error(cause),
+                    Alert.AlertType.ERROR).show();
+        });
+    }
+
+    private void showResult(int mark) {
+        try {
+            createAlert("Complete!", "Your mark: " + mark, null, Alert.AlertType.INFORMATION);
 
             FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("StudentMain.fxml"));
             Parent root = fxmlLoader.load();
@@ -97,8 +162,6 @@ public class StudentAssignment {
 
             Stage stage = (Stage) btnSubmitAnswer.getScene().getWindow();
             stage.setScene(new Scene(root));
-        } catch (Error error) {
-            createAlert("Problem finishing assignment", error, Alert.AlertType.ERROR);
         } catch (IOException e) {
             createAlert("Problem finishing assignment", new Error(e), Alert.AlertType.ERROR);
         }
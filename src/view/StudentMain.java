@@ -1,7 +1,6 @@
 package view;
 
 import controller.Student;
-import javafx.application.Platform;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
@@ -14,6 +13,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 import model.Error;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
 
@@ -27,6 +27,12 @@ public class StudentMain {
     @FXML
     private Button btnNewAssignment;
 
+    @FXML
+    private Button btnRegrade;
+
+    @FXML
+    private Button btnFullOutput;
+
     @FXML
     private ListView<model.Submission> lstPreviousAssignments;
 
@@ -54,11 +60,22 @@ public class StudentMain {
 
     @FXML
     void downloadData(ActionEvent event) {
-        try {
-            student.getData(btnDownloadData.getScene().getWindow());
-        } catch (Error error) {
-            createAlert("Problem creating file", error, Alert.AlertType.ERROR);
+        File file = student.chooseDataFile(btnDownloadData.getScene().getWindow());
+        if (file == null) {
+            return;
         }
+        btnDownloadData.setDisable(true);
+        // The data pack may have to be generated first, which reads from the database
+        Background.run(() -> {
+                    student.saveData(file);
+                    return file;
+                },
+                saved -> btnDownloadData.setDisable(false),
+                error -> {
+                    btnDownloadData.setDisable(false);
+                    createAlert("Problem creating file",
+                            error instanceof Error ? (Error) error : new Error(error), Alert.AlertType.ERROR).show();
+                });
     }
 
     @FXML
@@ -70,6 +87,55 @@ public class StudentMain {
         }
     }
 
+    @FXML
+    void regrade(ActionEvent event) {
+        model.Submission selected = lstPreviousAssignments.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        clean();
+        println("Marking again against the current data...");
+        btnRegrade.setDisable(true);
+        Background.run(() -> {
+                    model.Submission regraded = student.regrade(selected);
+                    return "Mark against the current data: " + regraded.getTotalMark() + "\n"
+                            + "(Your saved mark is still " + selected.getTotalMark() + ")\n\n" + regraded.getFeedback();
+                },
+                feedback -> {
+                    btnRegrade.setDisable(false);
+                    if (lstPreviousAssignments.getSelectionModel().getSelectedItem() == selected) {
+                        clean();
+                        println(feedback);
+                    }
+                },
+                error -> {
+                    btnRegrade.setDisable(false);
+                    createAlert("Problem marking the submission again",
+                            error instanceof Error ? (Error) error : new Error(error), Alert.AlertType.ERROR).show();
+                });
+    }
+
+    @FXML
+    void showFullOutput(ActionEvent event) {
+        model.Submission selected = lstPreviousAssignments.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        btnFullOutput.setDisable(true);
+        // The answers are run again the first time, later requests use the kept output
+        Background.run(selected::getFullOutput,
+                output -> {
+                    if (lstPreviousAssignments.getSelectionModel().getSelectedItem() == selected) {
+                        println(output.isEmpty() ? "There is no more output to show." : output);
+                    }
+                },
+                error -> {
+                    btnFullOutput.setDisable(false);
+                    createAlert("Problem showing the full output",
+                            error instanceof Error ? (Error) error : new Error(error), Alert.AlertType.ERROR).show();
+                });
+    }
+
     @FXML
     void newAssignment(ActionEvent event) {
         try {
@@ -111,17 +177,25 @@ public class StudentMain {
 
 
         lstPreviousAssignments.getSelectionModel().selectedItemProperty().addListener((obs, oldValue, newValue) -> {
+            btnRegrade.setDisable(newValue == null);
+            btnFullOutput.setDisable(newValue == null);
             if (newValue != null) {
-                Platform.runLater(() -> {
-                    try {
-                        clean();
-                        println("Total mark: " + newValue.getTotalMark());
-                        println();
-                        println(newValue.getFeedback());
-                    } catch (Error error) {
-                        createAlert("Problem displaying feedback", error, Alert.AlertType.ERROR);
-                    }
-                });
+                clean();
+                println("Loading feedback...");
+                // Feedback reads the data version, so it is loaded in the background
+                Background.run(() -> "Total mark: " + newValue.getTotalMark() + "\n"
+                                + (newValue.isStale() ? "The data has changed since this was marked, use Re-mark "
+                                + "Against Current Data to see how it would be marked now.\n" : "")
+                                + "\n" + newValue.getFeedback(),
+                        feedback -> {
+                            if (lstPreviousAssignments.getSelectionModel().getSelectedItem() == newValue) {
+                                clean();
+                                println(feedback);
+                            }
+                        },
+                        error -> createAlert("Problem displaying feedback",
+                                error instanceof Error ? (Error) error : new Error(error), Alert.AlertType.ERROR)
+                                .show());
             }
         });
     }
@@ -3,6 +3,17 @@ package model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 /**
  * Testing Answer class
  * @author Angus
@@ -33,4 +44,34 @@ public class TestAnswer {
     public void testCalculateMark(){
 
     }
+
+    private Question verboseQuestion() {
+        Dataset expected = new Dataset(Arrays.asList("StuID"),
+                Collections.singletonList(Collections.singletonList((Object) 1001)), false);
+        Question question = mock(Question.class);
+        when(question.getFeedbackType()).thenReturn(Question.FeedbackType.VERBOSE);
+        when(question.getCorrectAnswer()).thenReturn(expected);
+        when(question.isAnswer("SELECT StuID FROM matricData")).thenReturn(true);
+        return question;
+    }
+
+    @Test
+    public void testStoredFeedbackNotRun() {
+        Question question = verboseQuestion();
+        Answer answer = new Answer("SELECT StuID FROM matricData", question, 2, "Executed successfully", 1);
+        assertTrue("A stored answer should say its output was not kept",
+                answer.getFeedback().contains("Not kept"));
+        verify(question, never()).isAnswer("SELECT StuID FROM matricData");
+    }
+
+    @Test
+    public void testFullOutputKept() throws Exception {
+        Question question = verboseQuestion();
+        Answer answer = new Answer("SELECT StuID FROM matricData", question, 2, "Executed successfully", 1);
+        assertTrue("The full output should have every row", answer.getFullOutput().contains("1001"));
+        answer.getFullOutput();
+        verify(question, times(1)).isAnswer("SELECT StuID FROM matricData");
+        assertFalse("The feedback should then show the output",
+                answer.getFeedback().contains("Not kept"));
+    }
 }
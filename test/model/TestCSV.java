@@ -80,4 +80,58 @@ public class TestCSV{
         assertTrue("The file should be deleted",csvWriter.deleteFile());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testQuotedValues() throws Exception{
+        List<String> heading = new ArrayList<>();
+        heading.add("plain");
+        heading.add("comma, in it");
+        List<String> values = new ArrayList<>();
+        values.add("say \"hi\"");
+        values.add("line\nbreak");
+        CSV csvWriter = new CSV("testQuoted.csv", heading);
+        csvWriter.writeLine(values);
+        csvWriter.closeWriter();
+        CSV csvReader = new CSV("testQuoted.csv");
+        assertEquals("A value with the delimiter should read back the same", heading, csvReader.parseLine());
+        assertEquals("Values with quotes and line breaks should read back the same", values, csvReader.parseLine());
+        csvReader.closeReader();
+        assertTrue("The file should be deleted",csvWriter.deleteFile());
+    }
+
+
+    @Test
+    public void testGzipFile() throws Exception{
+        List<String> testHeadings = new ArrayList<>();
+        testHeadings.add("testHeading1");
+        testHeadings.add("testHeading2");
+        CSV csvWriter = new CSV("testOutput.csv", testHeadings, '|', true);
+        List<String> fakeData = new ArrayList<>();
+        fakeData.add("foo|bar");
+        fakeData.add("baz");
+        csvWriter.writeLine(fakeData);
+        csvWriter.closeWriter();
+        assertEquals("The gzipped file should have 2 lines",2,csvWriter.countLines());
+        assertTrue("The file should be gzipped",new File("testOutput.csv.gz").exists());
+        assertTrue("The file should be deleted",csvWriter.deleteFile());
+    }
+
+    @Test
+    public void testGzipFileStillOpen() throws Exception{
+        List<String> testHeadings = new ArrayList<>();
+        testHeadings.add("testHeading1");
+        testHeadings.add("testHeading2");
+        CSV csvWriter = new CSV("testOutput.csv", testHeadings, '|', true);
+        List<String> fakeData = new ArrayList<>();
+        fakeData.add("foo");
+        fakeData.add("bar");
+        csvWriter.writeLine(fakeData);
+        assertEquals("The lines written so far should be counted while the writer is open",2,csvWriter.countLines());
+        csvWriter.writeLine(fakeData);
+        assertEquals("Lines written after a count should be counted too",3,csvWriter.countLines());
+        csvWriter.closeWriter();
+        assertEquals("The closed file should have 3 lines",3,csvWriter.countLines());
+        assertTrue("The file should be deleted",csvWriter.deleteFile());
+    }
+
+}
@@ -0,0 +1,55 @@
+package model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestColumnarResult {
+    private ColumnarResult result(Object[]... rows) {
+        List<List<Object>> list = new ArrayList<>();
+        for (Object[] row : rows) {
+            list.add(Arrays.asList(row));
+        }
+        return new ColumnarResult(Arrays.asList("StuID", "Total", "Score", "LastName", "Fee"), list);
+    }
+
+    @Test
+    public void testValueTypesKept() {
+        ColumnarResult result = result(new Object[]{1001, 5L, 2.5, "Zwillig", new BigDecimal("10.50")});
+        assertEquals("Integers should come back as Integer", 1001, result.getValue(0, 0));
+        assertEquals("Longs should come back as Long", 5L, result.getValue(0, 1));
+        assertEquals("Doubles should come back as Double", 2.5, result.getValue(0, 2));
+        assertEquals("Strings should come back as String", "Zwillig", result.getValue(0, 3));
+        assertEquals("Other types should come back unchanged", new BigDecimal("10.50"), result.getValue(0, 4));
+    }
+
+    @Test
+    public void testNullsKept() {
+        ColumnarResult result = result(new Object[]{1001, 5L, 2.5, "Zwillig", null},
+                new Object[]{null, null, null, null, null});
+        assertEquals("Both rows should be stored", 2, result.getRowCount());
+        for (int column = 0; column < result.getColumnCount(); column++) {
+            assertNull("NULL should come back as null in column " + result.getColumnName(column),
+                    result.getValue(1, column));
+        }
+        assertEquals("A NULL in the next row should not change the previous one", 1001, result.getValue(0, 0));
+    }
+
+    @Test
+    public void testRepeatedStringsStoredOnce() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList(i, "Computer Science"));
+        }
+        ColumnarResult result = new ColumnarResult(Arrays.asList("StuID", "Major"), rows);
+        assertEquals("Every row should be stored", 100, result.getRowCount());
+        assertSame("Repeated strings should share one copy", result.getValue(0, 1), result.getValue(99, 1));
+    }
+}
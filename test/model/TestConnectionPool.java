@@ -0,0 +1,186 @@
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestConnectionPool {
+    private static final String URL = "jdbc:sqlmarktest://localhost";
+
+    private MockDriver driver;
+
+    /**
+     * Hands out mock connections for the test URL, so the pool can be tested without MariaDB
+     */
+    private static class MockDriver implements Driver {
+        private final List<Connection> opened = new ArrayList<>();
+
+        @Override
+        public synchronized Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            opened.add(connection);
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        private synchronized int getOpened() {
+            return opened.size();
+        }
+    }
+
+    @Before
+    public void init() throws SQLException {
+        driver = new MockDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    private ConnectionPool pool(int size, long waitMillis, long leakMillis) {
+        return new ConnectionPool(URL, "user", "password", "", size, waitMillis, leakMillis);
+    }
+
+    @Test
+    public void testBoundedWait() throws Exception {
+        ConnectionPool pool = pool(1, 100, 60000);
+        pool.borrow("data_store");
+        long start = System.currentTimeMillis();
+        try {
+            pool.borrow("data_store");
+            fail("Borrowing from a full pool should time out");
+        } catch (Error e) {
+            assertTrue("The borrower should have waited for a connection", System.currentTimeMillis() - start >= 90);
+        }
+        assertEquals("No more connections than the pool size should be opened", 1, driver.getOpened());
+    }
+
+    @Test
+    public void testReleaseWakesWaiter() throws Exception {
+        ConnectionPool pool = pool(1, 5000, 60000);
+        Connection first = pool.borrow("data_store");
+        when(first.getCatalog()).thenReturn("data_store");
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pool.release(first);
+        });
+        releaser.start();
+        assertSame("The waiting borrower should get the released connection", first, pool.borrow("data_store"));
+        releaser.join();
+        assertEquals("The connection should be borrowed again", 1, pool.getActive());
+        assertEquals("Both borrows should be counted", 2, pool.getBorrowCount());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        ConnectionPool pool = pool(2, 1000, 10);
+        Connection connection = pool.borrow("data_store");
+        Thread.sleep(30);
+        pool.detectLeaks();
+        pool.detectLeaks();
+        assertEquals("A connection held past the threshold should be reported once", 1, pool.getLeakCount());
+        pool.release(connection);
+        assertEquals("A returned connection should not be active", 0, pool.getActive());
+    }
+
+    @Test
+    public void testCatalogReset() throws Exception {
+        ConnectionPool pool = pool(2, 1000, 60000);
+        Connection connection = pool.borrow("data_store");
+        when(connection.getCatalog()).thenReturn("data_store_sandbox_1");
+        pool.release(connection);
+        verify(connection).setCatalog("data_store");
+        when(connection.getCatalog()).thenReturn("data_store");
+        assertSame("The reset connection should be reused", connection, pool.borrow("data_store"));
+    }
+
+    @Test
+    public void testSwitchedConnectionWithoutDatabase() throws Exception {
+        ConnectionPool pool = pool(2, 1000, 60000);
+        Connection connection = pool.borrow("");
+        when(connection.getCatalog()).thenReturn("data_store_sandbox_1");
+        pool.release(connection);
+        verify(connection).close();
+        verify(connection, never()).setCatalog("");
+        Connection next = pool.borrow("");
+        assertTrue("A connection left pointing at a database should not be handed out for none", next != connection);
+        assertEquals("A new connection should have been opened in its place", 2, driver.getOpened());
+    }
+
+    @Test
+    public void testDiscardedSessionNotInherited() throws Exception {
+        ConnectionPool pool = pool(1, 1000, 60000);
+        Connection student = pool.borrow("data_store_sandbox_1");
+        when(student.createStatement()).thenReturn(mock(Statement.class));
+        student.createStatement().execute("SET SESSION sql_select_limit=1");
+        pool.discard(student);
+        verify(student).close();
+        assertEquals("A discarded connection should not be active", 0, pool.getActive());
+
+        Connection next = pool.borrow("data_store_sandbox_1");
+        assertTrue("The next borrower should not get the connection with the student's session", next != student);
+        assertEquals("A new connection should have been opened in its place", 2, driver.getOpened());
+        assertEquals("The discarded connection should have freed its slot", 1, pool.getActive());
+    }
+}
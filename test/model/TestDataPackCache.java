@@ -0,0 +1,113 @@
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestDataPackCache {
+    private Path directory;
+    private DataPackCache.Source source;
+
+    @Before
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("sqlmark-packs-test");
+        source = mock(DataPackCache.Source.class);
+        when(source.currentVersion()).thenReturn(3);
+        doAnswer(invocation -> {
+            Writer out = invocation.getArgument(0);
+            out.write("INSERT INTO matricData VALUES ('" + invocation.getArgument(1) + "', "
+                    + invocation.getArgument(2) + ");\n");
+            return null;
+        }).when(source).write(any(Writer.class), anyString(), anyInt());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testKeyedByStudentAndVersion() throws Exception {
+        DataPackCache cache = new DataPackCache(directory, false, 1, source);
+        Path pack = cache.get("MCKANG001");
+        assertEquals("The pack should be named by student and version", "MCKANG001_v3.sql",
+                pack.getFileName().toString());
+        assertEquals("The pack should hold the student's data", "INSERT INTO matricData VALUES ('MCKANG001', 3);\n",
+                new String(Files.readAllBytes(pack), StandardCharsets.UTF_8));
+        assertEquals("A cached pack should be served again", pack, cache.get("MCKANG001"));
+        verify(source, times(1)).write(any(Writer.class), eq("MCKANG001"), eq(3));
+        assertNotEquals("Another student should get their own pack", pack, cache.get("PLTMAT001"));
+        when(source.currentVersion()).thenReturn(4);
+        assertEquals("A new data version should give a new pack", "MCKANG001_v4.sql",
+                cache.get("MCKANG001").getFileName().toString());
+    }
+
+    @Test
+    public void testPurgeOldVersions() throws Exception {
+        DataPackCache cache = new DataPackCache(directory, false, 1, source);
+        Path old = cache.get("MCKANG001");
+        when(source.currentVersion()).thenReturn(4);
+        Path current = cache.get("PLTMAT001");
+        assertFalse("Packs for an older version should be deleted", Files.exists(old));
+        assertTrue("Packs for the current version should be kept", Files.exists(current));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        DataPackCache cache = new DataPackCache(directory, true, 1, source);
+        Path pack = cache.get("MCKANG001");
+        assertTrue("A compressed pack should end in .sql.gz", pack.toString().endsWith("_v3.sql.gz"));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(pack))) {
+            assertEquals("The compressed pack should hold the student's data",
+                    "INSERT INTO matricData VALUES ('MCKANG001', 3);\n", read(in));
+        }
+    }
+
+    @Test
+    public void testCopyTo() throws Exception {
+        DataPackCache cache = new DataPackCache(directory, false, 1, source);
+        Path target = directory.resolve("download.txt");
+        Files.write(target, "a longer file that should be replaced by the pack".getBytes(StandardCharsets.UTF_8));
+        cache.copyTo("MCKANG001", target);
+        assertEquals("The download should be a copy of the pack", "INSERT INTO matricData VALUES ('MCKANG001', 3);\n",
+                new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
+}
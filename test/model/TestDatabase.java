@@ -5,6 +5,7 @@ import org.junit.Test;
 import java.sql.SQLException;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 public class TestDatabase {
@@ -16,6 +17,16 @@ public class TestDatabase {
         assertTrue("The DB should be connected",db.isConnected());
     }
 
+    @Test
+    public void testStudentSessionNotInherited() throws Exception{
+        Dataset set = new Dataset(new SQLStatement("SET SESSION sql_select_limit=1"), ExecutionLimits.getDefault());
+        assertEquals("The student's SET should run",Database.CompileStatus.SUCCESS,set.getCompileStatus());
+        for (int i = 0; i < ConnectionPool.getInstance().getMaxSize(); i++) {
+            Dataset next = new Dataset(new SQLStatement("SELECT 1 UNION ALL SELECT 2"), ExecutionLimits.getDefault());
+            assertEquals("Later statements should not inherit the student's sql_select_limit",2,next.getRowCount());
+        }
+    }
+
     @Test(expected = Error.class)
     public void testIncorrectDB() throws Exception{
         Database db = new Database("does not exist");
@@ -0,0 +1,82 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestGradingEngine {
+
+    private Question question(int questionNum) {
+        Question question = mock(Question.class);
+        when(question.getQuestionNum()).thenReturn(questionNum);
+        return question;
+    }
+
+    @Test
+    public void testFutureCompletesWithAnswer() {
+        Answer answer = mock(Answer.class);
+        String[] graded = new String[2];
+        GradingEngine engine = new GradingEngine(2, (sql, question) -> {
+            graded[0] = sql;
+            graded[1] = Metrics.getStudent();
+            return answer;
+        });
+        assertSame("The future should complete with the graded answer", answer,
+                engine.submit("MCKANG001", question(1), "SELECT 1").join());
+        assertEquals("The student's SQL should be graded", "SELECT 1", graded[0]);
+        assertEquals("The student should be known while grading", "MCKANG001", graded[1]);
+    }
+
+    @Test
+    public void testErrorsCompleteExceptionally() {
+        GradingEngine engine = new GradingEngine(1, (sql, question) -> {
+            throw new IllegalStateException("sandbox gone");
+        });
+        CompletableFuture<Answer> future = engine.submit("MCKANG001", question(3), "SELECT 1");
+        try {
+            future.join();
+            fail("A grading failure should complete the future exceptionally");
+        } catch (CompletionException e) {
+            assertTrue("The failure should be a model Error", e.getCause() instanceof Error);
+            assertTrue("The failure should name the question and student",
+                    e.getCause().getMessage().contains("question 3 for MCKANG001"));
+            assertTrue("The original failure should be kept", e.getCause().getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testBoundedWorkers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GradingEngine engine = new GradingEngine(1, (sql, question) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return mock(Answer.class);
+        });
+        CompletableFuture<Answer> first = engine.submit("MCKANG001", question(1), "SELECT 1");
+        CompletableFuture<Answer> second = engine.submit("MCKANG001", question(2), "SELECT 2");
+        assertTrue("The first answer should start grading", started.await(5, TimeUnit.SECONDS));
+        assertEquals("Only one answer should be graded at a time", 1, engine.getActive());
+        assertEquals("The second answer should wait for a worker", 1, engine.getQueued());
+        assertFalse("The waiting answer should not be graded yet", second.isDone());
+        release.countDown();
+        first.join();
+        second.join();
+        assertEquals("Nothing should be left waiting", 0, engine.getQueued());
+    }
+}
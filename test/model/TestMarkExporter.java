@@ -0,0 +1,105 @@
+package model;
+
+import controller.Lecturer;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestMarkExporter {
+
+    @Test
+    public void testHighestMarkOnly() {
+        MarkExporter exporter = new MarkExporter();
+        assertEquals("Only the student and highest mark should be exported",
+                Arrays.asList("student_num", "highest_mark"), exporter.getHeading());
+        assertEquals("The best submission total should be taken per student",
+                "SELECT s.student_num, COALESCE(MAX(t.total), 0) FROM students s LEFT JOIN (SELECT sub.student_num, "
+                        + "SUM(a.mark) AS total FROM student_submissions sub JOIN student_answers a ON a.submission_id "
+                        + "= sub.submission_id GROUP BY sub.submission_id, sub.student_num) t ON t.student_num = "
+                        + "s.student_num GROUP BY s.student_num ORDER BY s.student_num;", exporter.query());
+    }
+
+    @Test
+    public void testPerQuestion() {
+        MarkExporter exporter = new MarkExporter(Arrays.asList(1, 3));
+        assertEquals("A column should be added for each question",
+                Arrays.asList("student_num", "highest_mark", "question_1", "question_3"), exporter.getHeading());
+        String query = exporter.query();
+        assertTrue("Each question's mark should be picked out of the submission",
+                query.contains("MAX(CASE WHEN a.question_num = 3 THEN a.mark END) AS q3"));
+        assertTrue("The best mark for each question should be taken per student",
+                query.contains("COALESCE(MAX(t.q1), 0), COALESCE(MAX(t.q3), 0) FROM students s"));
+    }
+
+    /**
+     * Saves a submission with the same mark for every question but the first
+     */
+    private void submit(Assignment assignment, String studentNum, int firstMark, int otherMarks) throws Error {
+        Submission submission = new Submission(assignment);
+        for (int i = 0; i < assignment.getTotalQuestions(); i++) {
+            submission.addAnswer(new Answer("SELECT 1;", assignment.getQuestion(i), i == 0 ? firstMark : otherMarks,
+                    "Executed successfully", 1));
+        }
+        submission.submit(studentNum);
+    }
+
+    /**
+     * Exports the marks from the MariaDB described in sqlmark.properties, so is only run with -Pdb
+     */
+    @Test
+    public void testExportMarks() throws Exception {
+        Lecturer lecturer = new Lecturer();
+        lecturer.clearAll();
+        lecturer.loadData("matricData.csv");
+        lecturer.loadData("uniData.csv");
+        lecturer.loadStudents("students.csv");
+        lecturer.loadQuestions("questions.csv");
+        Assignment assignment = new Assignment();
+        int questions = assignment.getTotalQuestions();
+        submit(assignment, "abrsas002", 1, 1);
+        submit(assignment, "abrsas002", 2, 0);
+
+        List<Integer> questionNums = new ArrayList<>();
+        for (Question question : assignment.getQuestions()) {
+            questionNums.add(question.getQuestionNum());
+        }
+        MarkExporter exporter = new MarkExporter(questionNums);
+        String filename = "marks_test.csv";
+        CSV csv = new CSV(filename, exporter.getHeading());
+        Database db = new Database("admin_data");
+        try {
+            exporter.export(db, csv);
+        } finally {
+            db.close();
+            csv.closeWriter();
+        }
+
+        Map<String, List<String>> rows = new HashMap<>();
+        CSV reader = new CSV(filename);
+        try {
+            List<String> line = reader.parseLine();
+            assertEquals("The heading should be written first", exporter.getHeading(), line);
+            while ((line = reader.parseLine()) != null) {
+                rows.put(line.get(0), line);
+            }
+        } finally {
+            reader.closeReader();
+            new File(filename).delete();
+        }
+        List<String> marks = rows.get("abrsas002");
+        assertEquals("The best submission total should be exported", String.valueOf(Math.max(questions, 2)),
+                marks.get(1));
+        assertEquals("The best mark for the first question should come from any submission", "2", marks.get(2));
+        assertEquals("The best mark for the second question should come from any submission", "1", marks.get(3));
+        assertEquals("A student who has not submitted should get 0",
+                Arrays.asList("actsha001", "0"), rows.get("actsha001").subList(0, 2));
+    }
+}
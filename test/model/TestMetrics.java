@@ -0,0 +1,83 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestMetrics {
+    @Test
+    public void testPercentilesFromBuckets() {
+        PhaseTimer timer = new PhaseTimer("execute");
+        for (int i = 0; i < 99; i++) {
+            timer.record(2000000);
+        }
+        timer.record(400000000);
+        assertEquals("Every time should be counted", 100, timer.getCount());
+        assertEquals("The median should be the bound of the bucket most times fell in", 2.5, timer.getP50Millis(),
+                0.001);
+        assertEquals("The 99th percentile should still be in the first bucket", 2.5, timer.getP99Millis(), 0.001);
+        assertEquals("The longest time should be kept exactly", 400, timer.getMaxMillis(), 0.001);
+        assertEquals("The 100th percentile should be the longest time", 400, timer.getPercentileMillis(100), 0.001);
+    }
+
+    @Test
+    public void testPrometheusText() throws Exception {
+        Metrics metrics = new Metrics(Long.MAX_VALUE, null, false);
+        metrics.timer("connect").record(3000000);
+        metrics.gauge("pool_active", () -> 4);
+        String text = metrics.getPrometheusText();
+        assertTrue("Buckets should be cumulative", text.contains(
+                "sqlmark_phase_seconds_bucket{phase=\"connect\",le=\"0.0025\"} 0\n"
+                        + "sqlmark_phase_seconds_bucket{phase=\"connect\",le=\"0.005\"} 1\n"));
+        assertTrue("The overflow bucket should hold every time",
+                text.contains("sqlmark_phase_seconds_bucket{phase=\"connect\",le=\"+Inf\"} 1\n"));
+        assertTrue("The count should be exported", text.contains("sqlmark_phase_seconds_count{phase=\"connect\"} 1\n"));
+        assertTrue("Gauges should be exported", text.contains("sqlmark_pool_active 4.0\n"));
+
+        int port = metrics.startServer(0);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics")
+                    .openConnection();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                String body = in.lines().collect(Collectors.joining("\n", "", "\n"));
+                assertEquals("The endpoint should serve the same text", metrics.getPrometheusText(), body);
+            }
+        } finally {
+            metrics.stopServer();
+        }
+    }
+
+    @Test
+    public void testSlowQueryLoggedWithStudent() throws Exception {
+        Path log = Files.createTempFile("slow", ".log");
+        try {
+            Metrics metrics = new Metrics(1000000, log, false);
+            Metrics.setStudent("MCKANG001");
+            try {
+                metrics.checkSlow("SELECT *\nFROM uniData", 500000);
+                metrics.checkSlow("SELECT *\nFROM matricData", 5000000);
+            } finally {
+                Metrics.setStudent(null);
+            }
+            List<String> lines = Files.readAllLines(log);
+            assertEquals("Only the statement over the threshold should be logged", 1, lines.size());
+            assertTrue("The log should name the student and the SQL",
+                    lines.get(0).endsWith("slow query 5ms student MCKANG001: SELECT * FROM matricData"));
+            assertEquals("The slow query should be counted", 1, metrics.getSlowQueryCount());
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+}
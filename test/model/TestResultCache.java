@@ -0,0 +1,98 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TestResultCache {
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private final Function<SQLStatement, Dataset> runner = statement -> {
+        runs.incrementAndGet();
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(Arrays.asList(1001, "Zwillig"));
+        return new Dataset(Arrays.asList("StuID", "LastName"), rows, false);
+    };
+
+    @Test
+    public void testEquivalentQueriesShareResult() {
+        ResultCache cache = new ResultCache(10, 1024 * 1024);
+        Dataset first = cache.get(new SQLStatement("SELECT * FROM matricData;"), 1, runner);
+        Dataset second = cache.get(new SQLStatement("select *\n  from matricData"), 1, runner);
+        assertSame("A query differing only in whitespace and case should get the cached result", first, second);
+        assertEquals("The query should only be run once", 1, runs.get());
+        assertEquals("Half the lookups should be hits", 0.5, cache.getHitRate(), 0.0001);
+
+        cache.get(new SQLStatement("SELECT * FROM matricData"), 2, runner);
+        assertEquals("A new data version should run the query again", 2, runs.get());
+    }
+
+    @Test
+    public void testExpressionHeadingsKept() {
+        ResultCache cache = new ResultCache(10, 1024 * 1024);
+        Function<SQLStatement, Dataset> headed = statement -> {
+            runs.incrementAndGet();
+            List<List<Object>> rows = new ArrayList<>();
+            rows.add(Arrays.asList(3));
+            return new Dataset(Arrays.asList(statement.getSelectList()), rows, false);
+        };
+        Dataset spaced = cache.get(new SQLStatement("SELECT a + b FROM matricData"), 1, headed);
+        Dataset unspaced = cache.get(new SQLStatement("SELECT a+b FROM matricData"), 1, headed);
+        assertEquals("Each spacing of an unaliased expression should keep its own heading", "a+b",
+                unspaced.getColumnName(0));
+        assertEquals("The first result should keep its heading", "a + b", spaced.getColumnName(0));
+        assertSame("The same select list written the same way should share a result", unspaced,
+                cache.get(new SQLStatement("select a+b\nfrom matricData;"), 1, headed));
+        assertEquals("Each spacing should be run once", 2, runs.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        ResultCache cache = new ResultCache(2, 1024 * 1024);
+        cache.get(new SQLStatement("SELECT 1"), 1, runner);
+        cache.get(new SQLStatement("SELECT 2"), 1, runner);
+        cache.get(new SQLStatement("SELECT 1"), 1, runner);
+        cache.get(new SQLStatement("SELECT 3"), 1, runner);
+        assertEquals("The cache should stay within its size", 2, cache.size());
+        assertEquals("One result should have been evicted", 1, cache.getEvictions());
+
+        cache.get(new SQLStatement("SELECT 1"), 1, runner);
+        assertEquals("The recently used result should have been kept", 3, runs.get());
+        cache.get(new SQLStatement("SELECT 2"), 1, runner);
+        assertEquals("The least recently used result should have been evicted", 4, runs.get());
+    }
+
+    @Test
+    public void testByteLimit() {
+        ResultCache cache = new ResultCache(10, 40);
+        cache.get(new SQLStatement("SELECT 1"), 1, runner);
+        cache.get(new SQLStatement("SELECT 2"), 1, runner);
+        assertEquals("Only the results that fit in the byte limit should be kept", 1, cache.size());
+        assertEquals("The estimated size should be tracked", 22, cache.getBytes());
+    }
+
+    @Test
+    public void testUnavailableNotCached() {
+        ResultCache cache = new ResultCache(10, 1024 * 1024);
+        try {
+            cache.get(new SQLStatement("SELECT 1"), 1, statement -> {
+                throw new UnavailableException(new Error("No sandbox database became free in 60 seconds"));
+            });
+            fail("A statement that could not be run should not be given a result");
+        } catch (UnavailableException e) {
+            assertEquals("The pool's message should be kept", "No sandbox database became free in 60 seconds",
+                    e.getMessage());
+        }
+        assertEquals("Nothing should be cached", 0, cache.size());
+        cache.get(new SQLStatement("SELECT 1"), 1, runner);
+        assertEquals("The statement should be run again once a sandbox is free", 1, runs.get());
+    }
+}
@@ -0,0 +1,101 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestResultComparison {
+    private static final List<String> COLUMNS = Arrays.asList("StuID", "LastName");
+
+    private Dataset dataset(boolean ordered, Object[]... rows) {
+        List<List<Object>> list = new ArrayList<>();
+        for (Object[] row : rows) {
+            list.add(Arrays.asList(row));
+        }
+        return new Dataset(COLUMNS, list, ordered);
+    }
+
+    @Test
+    public void testUnorderedIgnoresRowOrder() {
+        Dataset expected = dataset(false, new Object[]{1001, "Zwillig"}, new Object[]{1002, "Abrahams"});
+        Dataset actual = dataset(false, new Object[]{1002, "Abrahams"}, new Object[]{1001, "Zwillig"});
+        assertTrue("Rows in another order should match without an ORDER BY",
+                ResultComparison.compare(expected, actual).isEqual());
+    }
+
+    @Test
+    public void testOrderedNeedsRowOrder() {
+        Dataset expected = dataset(true, new Object[]{1001, "Zwillig"}, new Object[]{1002, "Abrahams"});
+        Dataset actual = dataset(false, new Object[]{1002, "Abrahams"}, new Object[]{1001, "Zwillig"});
+        ResultComparison comparison = ResultComparison.compare(expected, actual);
+        assertFalse("Rows in another order should not match with an ORDER BY", comparison.isEqual());
+        assertEquals("The summary should say the order is wrong",
+                "You have the right rows but in the wrong order", comparison.getSummary());
+    }
+
+    @Test
+    public void testDuplicatesCounted() {
+        Dataset expected = dataset(false, new Object[]{1001, "Zwillig"}, new Object[]{1001, "Zwillig"});
+        Dataset actual = dataset(false, new Object[]{1001, "Zwillig"}, new Object[]{1003, null});
+        ResultComparison comparison = ResultComparison.compare(expected, actual);
+        assertFalse("A missing duplicate should not match", comparison.isEqual());
+        assertEquals("One row should be missing", 1, comparison.getMissing());
+        assertEquals("One row should be unexpected", 1, comparison.getExtra());
+    }
+
+    @Test
+    public void testValueTypesCompared() {
+        Dataset expected = dataset(false, new Object[]{1001, "Zwillig"});
+        Dataset actual = dataset(false, new Object[]{1001L, "Zwillig"});
+        assertFalse("Equal hashes with unequal values should not match",
+                ResultComparison.compare(expected, actual).isEqual());
+    }
+
+    @Test
+    public void testBinaryValuesCompared() {
+        List<String> columns = Arrays.asList("StuID", "Photo");
+        Dataset expected = new Dataset(columns, Arrays.asList(Arrays.asList(1001, new byte[]{1, 2, 3}),
+                Arrays.asList(1002, new byte[]{4, 5})), false);
+        Dataset actual = new Dataset(columns, Arrays.asList(Arrays.asList(1002, new byte[]{4, 5}),
+                Arrays.asList(1001, new byte[]{1, 2, 3})), false);
+        Dataset changed = new Dataset(columns, Arrays.asList(Arrays.asList(1001, new byte[]{1, 2, 3}),
+                Arrays.asList(1002, new byte[]{4, 6})), false);
+        assertTrue("Binary values with the same bytes should match",
+                ResultComparison.compare(expected, actual).isEqual());
+        assertFalse("Binary values with other bytes should not match",
+                ResultComparison.compare(expected, changed).isEqual());
+    }
+
+    @Test
+    public void testTableStatesCompared() {
+        Dataset expected = new Dataset(Arrays.asList(new TableChecksum("matricData", 10, "123")));
+        Dataset same = new Dataset(Arrays.asList(new TableChecksum("MATRICDATA", 10, "123")));
+        Dataset changed = new Dataset(Arrays.asList(new TableChecksum("matricData", 10, "456")));
+        Dataset shorter = new Dataset(Arrays.asList(new TableChecksum("matricData", 9, "123")));
+        assertTrue("Tables in the same state should match", ResultComparison.compare(expected, same).isEqual());
+        assertFalse("Tables with other values should not match",
+                ResultComparison.compare(expected, changed).isEqual());
+        assertEquals("The summary should give the row counts", "Table matricData has 9 row(s), expected 10",
+                ResultComparison.compare(expected, shorter).getSummary());
+        assertFalse("A query should not match DML",
+                ResultComparison.compare(expected, dataset(false, new Object[]{1001, "Zwillig"})).isEqual());
+    }
+
+    @Test
+    public void testFailedStatementNotRun() {
+        Dataset failed = mock(Dataset.class);
+        when(failed.getCompileStatus()).thenReturn(Database.CompileStatus.FAILURE);
+        ResultComparison comparison = ResultComparison.compare(dataset(false, new Object[]{1001, "Zwillig"}), failed);
+        assertFalse("A statement that failed should not match", comparison.isEqual());
+        assertEquals("The summary should say the statement did not run", "Your statement did not run",
+                comparison.getSummary());
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestResultFingerprint {
+    private static final List<String> COLUMNS = Arrays.asList("StuID", "LastName");
+
+    private Dataset dataset(boolean ordered, Object[]... rows) {
+        List<List<Object>> list = new ArrayList<>();
+        for (Object[] row : rows) {
+            list.add(Arrays.asList(row));
+        }
+        return new Dataset(COLUMNS, list, ordered);
+    }
+
+    @Test
+    public void testUnorderedHashIgnoresRowOrder() {
+        ResultFingerprint first = ResultFingerprint.of(dataset(false, new Object[]{1001, "Zwillig"},
+                new Object[]{1002, "Abrahams"}), 10);
+        ResultFingerprint second = ResultFingerprint.of(dataset(false, new Object[]{1002, "Abrahams"},
+                new Object[]{1001, "Zwillig"}), 10);
+        assertEquals("Unordered results with the same rows should have the same hash",
+                first.getHash(), second.getHash());
+    }
+
+    @Test
+    public void testOrderedHashUsesRowOrder() {
+        ResultFingerprint first = ResultFingerprint.of(dataset(true, new Object[]{1001, "Zwillig"},
+                new Object[]{1002, "Abrahams"}), 10);
+        ResultFingerprint second = ResultFingerprint.of(dataset(true, new Object[]{1002, "Abrahams"},
+                new Object[]{1001, "Zwillig"}), 10);
+        assertNotEquals("Ordered results with rows in another order should have different hashes",
+                first.getHash(), second.getHash());
+    }
+
+    @Test
+    public void testPreviewBounded() {
+        ResultFingerprint fingerprint = ResultFingerprint.of(dataset(false, new Object[]{1001, "Zwillig"},
+                new Object[]{1002, "Abrahams"}, new Object[]{1003, "Smith"}), 2);
+        assertEquals("The row count should cover every row", 3, fingerprint.getRowCount());
+        assertEquals("The preview should hold the header and two rows plus a note",
+                4, fingerprint.getPreview().split("\n").length);
+        assertTrue("The preview should say how many rows were left out",
+                fingerprint.getPreview().contains("1 more row(s)"));
+    }
+}
@@ -0,0 +1,43 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestSQLCanonicalizer {
+
+    @Test
+    public void testLayoutAndCase() {
+        assertEquals("Whitespace, comments, keyword case and the trailing semicolon should not matter",
+                SQLCanonicalizer.canonicalSql("SELECT COUNT(*) FROM matricData;"),
+                SQLCanonicalizer.canonicalSql("select count( * )\n/* how many */ from matricData ;;"));
+        assertNotEquals("Table names should keep their case",
+                SQLCanonicalizer.canonicalSql("SELECT * FROM matricData"),
+                SQLCanonicalizer.canonicalSql("SELECT * FROM MatricData"));
+    }
+
+    @Test
+    public void testQuoteStyles() {
+        assertEquals("Double and single quoted strings should be the same",
+                SQLCanonicalizer.canonicalSql("SELECT * FROM matricData WHERE StuID = '1001'"),
+                SQLCanonicalizer.canonicalSql("SELECT * FROM matricData WHERE StuID = \"1001\""));
+        assertEquals("Quotes inside strings should be written the same way",
+                "'O''Neil'", SQLCanonicalizer.canonicalString("\"O'Neil\""));
+        assertEquals("Escaped quotes should be written the same way",
+                "'O''Neil'", SQLCanonicalizer.canonicalString("'O\\'Neil'"));
+        assertEquals("Other escapes should be kept", "'100\\%'", SQLCanonicalizer.canonicalString("'100\\%'"));
+        assertNotEquals("Strings should keep their case",
+                SQLCanonicalizer.canonicalSql("SELECT 'abc'"), SQLCanonicalizer.canonicalSql("SELECT 'ABC'"));
+    }
+
+    @Test
+    public void testBackticks() {
+        assertEquals("Backticks around a plain identifier should not matter",
+                SQLCanonicalizer.canonicalSql("SELECT StuID FROM matricData"),
+                SQLCanonicalizer.canonicalSql("SELECT `StuID` FROM `matricData`"));
+        assertNotEquals("Backticks around a reserved word should be kept",
+                SQLCanonicalizer.canonicalSql("SELECT key FROM matricData"),
+                SQLCanonicalizer.canonicalSql("SELECT `key` FROM matricData"));
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSQLExporter {
+
+    private String literal(Object value) {
+        StringBuilder sql = new StringBuilder();
+        SQLExporter.appendValue(sql, value);
+        return sql.toString();
+    }
+
+    @Test
+    public void testStringsEscaped() {
+        assertEquals("Quotes and backslashes should be escaped", "'O\\'Neil \\\\ Sons'", literal("O'Neil \\ Sons"));
+        assertEquals("Newlines should be escaped", "'a\\nb'", literal("a\nb"));
+    }
+
+    @Test
+    public void testOtherValues() {
+        assertEquals("NULL should be written unquoted", "NULL", literal(null));
+        assertEquals("Numbers should be written unquoted", "1001", literal(1001));
+        assertEquals("Decimals should not use exponents", "10000000", literal(new BigDecimal("1E+7")));
+        assertEquals("Booleans should be written as bits", "1", literal(true));
+        assertEquals("Bytes should be written as hex", "X'0AFF'", literal(new byte[]{10, -1}));
+    }
+}
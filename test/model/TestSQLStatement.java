@@ -0,0 +1,123 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSQLStatement {
+
+    @Test
+    public void testQuery() {
+        assertEquals("A SELECT should be a query", SQLStatement.Type.QUERY,
+                new SQLStatement("SELECT * FROM matricData WHERE StuID = \"1001\";").getType());
+    }
+
+    @Test
+    public void testDML() {
+        assertEquals("A DELETE should be DML", SQLStatement.Type.DML,
+                new SQLStatement("DELETE FROM matricData WHERE Year<2000;").getType());
+        assertEquals("An UPDATE should be DML", SQLStatement.Type.DML,
+                new SQLStatement("  update matricData SET UCTScore = 10*UCTScore+30").getType());
+    }
+
+    @Test
+    public void testDDL() {
+        assertEquals("A DROP should need its own sandbox", SQLStatement.Type.OTHER,
+                new SQLStatement("DROP TABLE matricData;").getType());
+    }
+
+    @Test
+    public void testMultipleStatements() {
+        assertEquals("A second statement should need its own sandbox", SQLStatement.Type.OTHER,
+                new SQLStatement("SELECT 1; DROP TABLE matricData;").getType());
+    }
+
+    @Test
+    public void testKeywordsInStrings() {
+        assertEquals("Keywords inside strings and comments should be ignored", SQLStatement.Type.QUERY,
+                new SQLStatement("SELECT 'COMMIT; DROP' -- ; DROP TABLE x\nFROM uniData;").getType());
+        assertEquals("Executable comments should need their own sandbox", SQLStatement.Type.OTHER,
+                new SQLStatement("SELECT 1 /*! ; DROP TABLE uniData */").getType());
+    }
+
+    @Test
+    public void testTargetTables() {
+        assertEquals("An INSERT should target its table", Arrays.asList("matricData"),
+                new SQLStatement("INSERT IGNORE INTO matricData (StuID) VALUES (1)").getTargetTables());
+        assertEquals("An UPDATE should target every joined table", Arrays.asList("matricData", "uniData"),
+                new SQLStatement("UPDATE matricData m JOIN uniData u ON m.StuID = u.StuID SET m.Year = 1")
+                        .getTargetTables());
+        assertEquals("A DELETE should target the table it deletes from", Arrays.asList("matricData"),
+                new SQLStatement("DELETE FROM `matricData` WHERE Year < (SELECT 2000 FROM uniData)")
+                        .getTargetTables());
+        assertEquals("A multi-table DELETE should target the tables its aliases name", Arrays.asList("matricData"),
+                new SQLStatement("DELETE m FROM matricData AS m JOIN uniData u ON m.StuID = u.StuID")
+                        .getTargetTables());
+        assertTrue("A query should have no target tables",
+                new SQLStatement("SELECT * FROM matricData").getTargetTables().isEmpty());
+    }
+
+    @Test
+    public void testReadOnly() {
+        assertTrue("A plain query should be read-only",
+                new SQLStatement("SELECT * FROM matricData WHERE Year < 2000").isReadOnly());
+        assertFalse("A query that locks rows should not be read-only",
+                new SQLStatement("SELECT * FROM matricData FOR UPDATE").isReadOnly());
+        assertFalse("A query that takes shared locks should not be read-only",
+                new SQLStatement("SELECT * FROM matricData LOCK IN SHARE MODE").isReadOnly());
+        assertFalse("DML should not be read-only",
+                new SQLStatement("UPDATE matricData SET UCTScore = 10*UCTScore+30").isReadOnly());
+    }
+
+    @Test
+    public void testNormalizedSql() {
+        assertEquals("Whitespace, comments, keyword case and the trailing semicolon should not matter",
+                new SQLStatement("SELECT COUNT(*) FROM matricData WHERE Year < 2000;").getNormalizedSql(),
+                new SQLStatement("select  count(*)\n  from matricData -- old students\n where Year<2000")
+                        .getNormalizedSql());
+        assertTrue("Table names should keep their case", !new SQLStatement("SELECT * FROM matricData")
+                .getNormalizedSql().equals(new SQLStatement("SELECT * FROM MATRICDATA").getNormalizedSql()));
+    }
+
+    @Test
+    public void testSelectList() {
+        assertEquals("The select list should be kept as written", "StuID,  UCTScore + 10",
+                new SQLStatement("SELECT StuID,  UCTScore + 10\n FROM matricData").getSelectList());
+        assertEquals("Only the outermost select list should count", "t.total",
+                new SQLStatement("WITH t AS (SELECT SUM(Credits) AS total FROM uniData) SELECT t.total FROM t")
+                        .getSelectList());
+        assertEquals("A query without FROM should use the rest of the statement", "1 + 1",
+                new SQLStatement("SELECT 1 + 1;").getSelectList());
+    }
+
+    @Test
+    public void testCacheable() {
+        assertTrue("A plain query should be cacheable",
+                new SQLStatement("SELECT * FROM uniData WHERE Credits > 100").isCacheable());
+        assertFalse("A query using RAND should not be cacheable",
+                new SQLStatement("SELECT * FROM uniData ORDER BY RAND() LIMIT 1").isCacheable());
+        assertFalse("A query setting a variable should not be cacheable",
+                new SQLStatement("SELECT @total := SUM(Credits) FROM uniData").isCacheable());
+        assertFalse("DML should not be cacheable",
+                new SQLStatement("DELETE FROM uniData WHERE Credits > 100").isCacheable());
+        assertTrue("A query calling only deterministic functions should be cacheable",
+                new SQLStatement("SELECT UPPER(LastName), COUNT(*) FROM uniData WHERE StuID IN (SELECT StuID "
+                        + "FROM matricData) GROUP BY LastName HAVING SUM(Credits) > 100").isCacheable());
+        assertFalse("A query reading a sequence should not be cacheable",
+                new SQLStatement("SELECT NEXTVAL(s), StuID FROM uniData").isCacheable());
+        assertFalse("A query taking a named lock should not be cacheable",
+                new SQLStatement("SELECT GET_LOCK('grading', 10)").isCacheable());
+        assertFalse("A query reading a file should not be cacheable",
+                new SQLStatement("SELECT LOAD_FILE('/etc/passwd')").isCacheable());
+        assertFalse("A query calling a stored function should not be cacheable",
+                new SQLStatement("SELECT data_store.grade(Credits) FROM uniData").isCacheable());
+        assertFalse("A query locking rows should not be cacheable",
+                new SQLStatement("SELECT * FROM uniData FOR UPDATE").isCacheable());
+        assertFalse("A query locking rows in share mode should not be cacheable",
+                new SQLStatement("SELECT * FROM uniData LOCK IN SHARE MODE").isCacheable());
+    }
+}
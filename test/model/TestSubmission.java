@@ -0,0 +1,71 @@
+package model;
+
+import controller.Lecturer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Saves and loads submissions, needs the MariaDB described in sqlmark.properties so is only run with -Pdb
+ */
+public class TestSubmission {
+    private static final String STUDENT_NUM = "abrsas002";
+
+    private static Assignment assignment;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        Lecturer lecturer = new Lecturer();
+        lecturer.clearAll();
+        lecturer.loadData("matricData.csv");
+        lecturer.loadData("uniData.csv");
+        lecturer.loadStudents("students.csv");
+        lecturer.loadQuestions("questions.csv");
+        assignment = new Assignment();
+    }
+
+    private Submission answered() {
+        Submission submission = new Submission(assignment);
+        for (int i = 0; i < assignment.getTotalQuestions(); i++) {
+            Question question = assignment.getQuestion(i);
+            submission.addAnswer(new Answer("SELECT " + i + ";", question, i % 3, "Message " + i, 7));
+        }
+        return submission;
+    }
+
+    @Test
+    public void testSubmitAndReload() throws Exception {
+        Submission submission = answered().submit(STUDENT_NUM);
+        assertTrue("A saved submission should have an id", submission.getSubmissionID() > 0);
+
+        Submission loaded = new Submission(assignment, submission.getSubmissionID());
+        assertEquals("The saved marks should be loaded", submission.getTotalMark(), loaded.getTotalMark());
+        assertTrue("Every answer should be loaded", loaded.checkComplete());
+
+        Student student = new Student(STUDENT_NUM, assignment);
+        boolean found = false;
+        for (Submission saved : student.getSubmissions()) {
+            found |= saved.getSubmissionID() == submission.getSubmissionID();
+        }
+        assertTrue("The student should have the saved submission", found);
+    }
+
+    @Test
+    public void testRollbackResetsId() throws Exception {
+        Submission submission = answered();
+        try {
+            // There is no such student, so the foreign key fails the insert
+            submission.submit("nosuch001");
+            fail("Saving for a student that does not exist should fail");
+        } catch (Error e) {
+            assertEquals("A rolled back submission should not keep its id", 0, submission.getSubmissionID());
+        }
+        submission.submit(STUDENT_NUM);
+        assertTrue("Saving again should use a new id", submission.getSubmissionID() > 0);
+        assertEquals("Saving again should save every answer", submission.getTotalMark(),
+                new Submission(assignment, submission.getSubmissionID()).getTotalMark());
+    }
+}